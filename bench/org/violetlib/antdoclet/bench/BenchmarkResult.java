@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet.bench;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+  The measurements for one benchmark configuration.
+
+  @param templates The name of the template set.
+  @param size The number of tasks in the corpus.
+  @param threads The number of processors made available to the JVM.
+  @param wallMillis The median wall time of the doclet run, in milliseconds.
+  @param peakRssKB The largest peak resident set size, in kilobytes, or -1 if unknown.
+  @param gcMillis The median garbage collection time, in milliseconds.
+  @param outputBytes The total size of the generated files, in bytes.
+*/
+
+public record BenchmarkResult(@NotNull String templates,
+                              int size,
+                              int threads,
+                              long wallMillis,
+                              long peakRssKB,
+                              long gcMillis,
+                              long outputBytes)
+{
+    /**
+      Return a key that identifies the configuration.
+    */
+
+    public @NotNull String key()
+    {
+        return templates + "/" + size + "/" + threads;
+    }
+
+    /**
+      Write a list of results as a JSON document.
+    */
+
+    public static @NotNull String toJson(@NotNull List<BenchmarkResult> results)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"results\": [");
+        String separator = "\n";
+        for (BenchmarkResult r : results) {
+            sb.append(separator);
+            sb.append(String.format("    {\"templates\": \"%s\", \"size\": %d, \"threads\": %d, \"wallMillis\": %d, "
+                + "\"peakRssKB\": %d, \"gcMillis\": %d, \"outputBytes\": %d}",
+              r.templates, r.size, r.threads, r.wallMillis, r.peakRssKB, r.gcMillis, r.outputBytes));
+            separator = ",\n";
+        }
+        sb.append("\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    /**
+      Read a list of results from a JSON document written by {@link #toJson}.
+      @throws IllegalArgumentException if the document is not valid.
+    */
+
+    public static @NotNull List<BenchmarkResult> fromJson(@NotNull String json)
+    {
+        Object root = new Parser(json).parseDocument();
+        if (!(root instanceof Map<?,?> m) || !(m.get("results") instanceof List<?> items)) {
+            throw new IllegalArgumentException("Expected an object with a results array");
+        }
+        List<BenchmarkResult> result = new ArrayList<>();
+        for (Object item : items) {
+            if (!(item instanceof Map<?,?> r)) {
+                throw new IllegalArgumentException("Expected a result object");
+            }
+            result.add(new BenchmarkResult((String) r.get("templates"), (int) number(r, "size"),
+              (int) number(r, "threads"), number(r, "wallMillis"), number(r, "peakRssKB"), number(r, "gcMillis"),
+              number(r, "outputBytes")));
+        }
+        return result;
+    }
+
+    private static long number(@NotNull Map<?,?> m, @NotNull String name)
+    {
+        if (m.get(name) instanceof Long n) {
+            return n;
+        }
+        throw new IllegalArgumentException("Missing or invalid value: " + name);
+    }
+
+    /**
+      A parser for the subset of JSON used by result files: objects, arrays, strings without escapes other than
+      {@code \"} and {@code \\}, and integers.
+    */
+
+    private static class Parser
+    {
+        private final @NotNull String s;
+        private int pos;
+
+        Parser(@NotNull String s)
+        {
+            this.s = s;
+        }
+
+        @NotNull Object parseDocument()
+        {
+            Object value = parseValue();
+            skipWhitespace();
+            if (pos != s.length()) {
+                throw error("Unexpected content");
+            }
+            return value;
+        }
+
+        private @NotNull Object parseValue()
+        {
+            skipWhitespace();
+            if (pos >= s.length()) {
+                throw error("Unexpected end of document");
+            }
+            char c = s.charAt(pos);
+            if (c == '{') {
+                return parseObject();
+            }
+            if (c == '[') {
+                return parseArray();
+            }
+            if (c == '"') {
+                return parseString();
+            }
+            return parseNumber();
+        }
+
+        private @NotNull Map<String,Object> parseObject()
+        {
+            Map<String,Object> result = new HashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return result;
+            }
+            for (;;) {
+                skipWhitespace();
+                String name = parseString();
+                skipWhitespace();
+                expect(':');
+                result.put(name, parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return result;
+                }
+            }
+        }
+
+        private @NotNull List<Object> parseArray()
+        {
+            List<Object> result = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return result;
+            }
+            for (;;) {
+                result.add(parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return result;
+                }
+            }
+        }
+
+        private @NotNull String parseString()
+        {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            for (;;) {
+                if (pos >= s.length()) {
+                    throw error("Unterminated string");
+                }
+                char c = s.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\' && pos < s.length()) {
+                    c = s.charAt(pos++);
+                }
+                sb.append(c);
+            }
+        }
+
+        private @NotNull Long parseNumber()
+        {
+            int start = pos;
+            if (peek() == '-') {
+                pos++;
+            }
+            while (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+                pos++;
+            }
+            try {
+                return Long.parseLong(s.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number");
+            }
+        }
+
+        private char peek()
+        {
+            return pos < s.length() ? s.charAt(pos) : 0;
+        }
+
+        private void expect(char c)
+        {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+
+        private void skipWhitespace()
+        {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private @NotNull IllegalArgumentException error(@NotNull String message)
+        {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+
+    /**
+      Find the result with the same configuration in a list.
+    */
+
+    public @Nullable BenchmarkResult findIn(@NotNull List<BenchmarkResult> results)
+    {
+        for (BenchmarkResult r : results) {
+            if (r.key().equals(key())) {
+                return r;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet.bench;
+
+import org.jetbrains.annotations.NotNull;
+import org.violetlib.antdoclet.AntDoclet;
+
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+  Run the doclet once and report its measurements. The worker runs in its own JVM, so that the peak resident set size
+  and the garbage collection time describe a single run.
+  <p>
+  Arguments: source directory, output directory, templates directory, Ant jar. The measurements are written to
+  standard output as a line starting with {@value #RESULT_PREFIX}, followed by wall time (ms), peak resident set
+  size (KB, or -1 if unknown), garbage collection time (ms), and output size (bytes), separated by spaces.
+*/
+
+public class BenchmarkWorker
+{
+    public static final @NotNull String RESULT_PREFIX = "RESULT ";
+
+    public static void main(@NotNull String[] args)
+      throws IOException
+    {
+        if (args.length != 4) {
+            System.err.println("Usage: BenchmarkWorker <source dir> <output dir> <templates dir> <ant jar>");
+            System.exit(2);
+        }
+
+        Path sourceDir = Path.of(args[0]);
+        Path outputDir = Path.of(args[1]);
+        String templatesDir = args[2];
+        String antJar = args[3];
+
+        Files.createDirectories(outputDir);
+        copyStyleSheets(Path.of(templatesDir, "html"), outputDir);
+
+        DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+        long start = System.nanoTime();
+        boolean success;
+        try (StandardJavaFileManager fm = tool.getStandardFileManager(null, null, null)) {
+            List<Path> sources;
+            try (Stream<Path> s = Files.walk(sourceDir)) {
+                sources = s.filter(p -> p.toString().endsWith(".java")).sorted().toList();
+            }
+            Iterable<? extends JavaFileObject> units = fm.getJavaFileObjectsFromPaths(sources);
+            List<String> options = new ArrayList<>(List.of(
+              "-quiet",
+              "-classpath", antJar,
+              "-templatesdir", templatesDir,
+              "-templates", "html/main.vm",
+              "-output", outputDir.toString(),
+              "-doctitle", "Benchmark"));
+            DocumentationTool.DocumentationTask task = tool.getTask(null, fm, null, AntDoclet.class, options, units);
+            success = task.call();
+        }
+        long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (!success) {
+            System.err.println("Doclet failed");
+            System.exit(1);
+        }
+
+        System.out.println(RESULT_PREFIX + wallMillis + " " + getPeakResidentSetSize() + " " + getGCMillis()
+          + " " + getSize(outputDir));
+    }
+
+    private static void copyStyleSheets(@NotNull Path from, @NotNull Path to)
+      throws IOException
+    {
+        try (Stream<Path> s = Files.list(from)) {
+            for (Path p : s.filter(p -> p.toString().endsWith(".css")).toList()) {
+                Files.copy(p, to.resolve(p.getFileName()), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+      Return the peak resident set size of this process, in kilobytes, or -1 if it cannot be determined.
+    */
+
+    private static long getPeakResidentSetSize()
+    {
+        Path status = Path.of("/proc/self/status");
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmHWM:")) {
+                    return Long.parseLong(line.substring(6).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException ignore) {
+        }
+        return -1;
+    }
+
+    private static long getGCMillis()
+    {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long t = gc.getCollectionTime();
+            if (t > 0) {
+                total += t;
+            }
+        }
+        return total;
+    }
+
+    private static long getSize(@NotNull Path dir)
+      throws IOException
+    {
+        try (Stream<Path> s = Files.walk(dir)) {
+            long total = 0;
+            for (Path p : s.filter(Files::isRegularFile).toList()) {
+                if (!p.getFileName().toString().equals("velocity.log")) {
+                    total += Files.size(p);
+                }
+            }
+            return total;
+        }
+    }
+}
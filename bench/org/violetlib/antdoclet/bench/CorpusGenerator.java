@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet.bench;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+  Generate a synthetic corpus of Ant tasks and types for benchmarking. The corpus is determined entirely by its size,
+  so corpora of the same size are identical.
+  <p>
+  Each task has several attributes, a named nested element, an unnamed nested element, a property, and a snippet.
+  Types refer to other types, so that some types are documented only as auxiliary types.
+*/
+
+public class CorpusGenerator
+{
+    public static final @NotNull String TASK_PACKAGE = "bench.tasks";
+    public static final @NotNull String TYPE_PACKAGE = "bench.types";
+
+    private static final String[] CATEGORIES = { "filesystem", "network", "compile", "archive", "testing" };
+
+    /**
+      Generate a corpus.
+      @param dir The source root directory.
+      @param size The number of tasks. The number of types is half the number of tasks.
+    */
+
+    public static void generate(@NotNull Path dir, int size)
+      throws IOException
+    {
+        Path taskDir = dir.resolve(TASK_PACKAGE.replace('.', '/'));
+        Path typeDir = dir.resolve(TYPE_PACKAGE.replace('.', '/'));
+        Files.createDirectories(taskDir);
+        Files.createDirectories(typeDir);
+
+        int typeCount = Math.max(2, size / 2);
+        for (int i = 0; i < typeCount; i++) {
+            Files.writeString(typeDir.resolve(typeName(i) + ".java"), createType(i, typeCount));
+        }
+        for (int i = 0; i < size; i++) {
+            Files.writeString(taskDir.resolve(taskName(i) + ".java"), createTask(i, typeCount));
+        }
+    }
+
+    private static @NotNull String taskName(int i)
+    {
+        return String.format("Task%05d", i);
+    }
+
+    private static @NotNull String typeName(int i)
+    {
+        return String.format("Type%05d", i);
+    }
+
+    private static @NotNull String createTask(int i, int typeCount)
+    {
+        String name = taskName(i);
+        String category = CATEGORIES[i % CATEGORIES.length];
+        String nested = typeName(i % typeCount);
+        String unnamed = typeName((i * 7 + 3) % typeCount);
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(TASK_PACKAGE).append(";\n\n");
+        sb.append("import org.apache.tools.ant.Task;\n");
+        sb.append("import ").append(TYPE_PACKAGE).append(".*;\n\n");
+        sb.append("/**\n");
+        sb.append(" * Task number ").append(i).append(" performs a synthetic operation on {@code <files>}.\n");
+        sb.append(" * It uses {@link ").append(nested).append("} elements.\n");
+        sb.append(" * {@snippet lang=xml :\n");
+        sb.append(" * <").append(name.toLowerCase()).append(" src=\"a\" count=\"3\">\n");
+        sb.append(" *     <item name=\"x\"/> <!-- @highlight substring=\"item\" -->\n");
+        sb.append(" * </").append(name.toLowerCase()).append(">\n");
+        sb.append(" * }\n");
+        sb.append(" *\n");
+        sb.append(" * @ant.task name=\"").append(name.toLowerCase()).append("\" category=\"").append(category)
+          .append("\"\n");
+        sb.append(" */\n");
+        sb.append("public class ").append(name).append(" extends Task\n{\n");
+        sb.append("    /**\n     * The default count.\n     * @ant.prop type=\"int\"\n     */\n");
+        sb.append("    public static final String COUNT_PROPERTY = \"").append(name.toLowerCase())
+          .append(".count\";\n\n");
+        for (String attribute : new String[] { "Src", "Dest", "Pattern" }) {
+            sb.append("    /**\n     * The ").append(attribute.toLowerCase()).append(" of the operation.\n");
+            sb.append(attribute.equals("Src") ? "     * @ant.required\n" : "     * @ant.optional\n");
+            sb.append("     */\n");
+            sb.append("    public void set").append(attribute).append("(String s) {}\n\n");
+        }
+        sb.append("    /**\n     * The number of repetitions.\n     */\n");
+        sb.append("    public void setCount(int n) {}\n\n");
+        sb.append("    /**\n     * Add an item.\n     */\n");
+        sb.append("    public void addItem(").append(nested).append(" item) {}\n\n");
+        sb.append("    /**\n     * Add an element.\n     */\n");
+        sb.append("    public void add(").append(unnamed).append(" e) {}\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static @NotNull String createType(int i, int typeCount)
+    {
+        String name = typeName(i);
+        String next = typeName((i + 1) % typeCount);
+        boolean isPrimary = i % 3 == 0;
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(TYPE_PACKAGE).append(";\n\n");
+        sb.append("import org.apache.tools.ant.ProjectComponent;\n\n");
+        sb.append("/**\n");
+        sb.append(" * Type number ").append(i).append(", which contains {@link ").append(next)
+          .append("} elements.\n");
+        if (isPrimary) {
+            sb.append(" *\n * @ant.type name=\"").append(name.toLowerCase()).append("\" category=\"")
+              .append(CATEGORIES[i % CATEGORIES.length]).append("\"\n");
+        }
+        sb.append(" */\n");
+        sb.append("public class ").append(name).append(" extends ProjectComponent\n{\n");
+        sb.append("    /**\n     * The name.\n     */\n");
+        sb.append("    public void setName(String s) {}\n\n");
+        sb.append("    /**\n     * Create a nested element.\n     */\n");
+        sb.append("    public ").append(next).append(" createNext() { return null; }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet.bench;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+  Run the complete doclet over synthetic corpora of several sizes, using several template sets and processor counts,
+  and record the measurements as JSON. The measurements can be compared with a stored baseline.
+  <p>
+  Each run uses a new JVM, which is limited to the specified number of processors. The wall time and garbage
+  collection time are the median of the runs. The peak resident set size is the largest of the runs.
+  <p>
+  Options:
+  <ul>
+  <li>{@code -sizes} the corpus sizes (number of tasks), comma-separated. The default is 50,200,1000.</li>
+  <li>{@code -threads} the processor counts, comma-separated. The default is 1,4.</li>
+  <li>{@code -templates} the template set directories, comma-separated. The default is
+  templates/example-noframes,templates/example-frames.</li>
+  <li>{@code -runs} the number of runs of each configuration. The default is 3.</li>
+  <li>{@code -antjar} the Ant jar used to compile the corpus (required).</li>
+  <li>{@code -work} the directory for corpora and output. The default is build/bench.</li>
+  <li>{@code -out} the file to which results are written. The default is build/bench/results.json.</li>
+  <li>{@code -baseline} a result file to compare with.</li>
+  <li>{@code -tolerance} the allowed relative increase over the baseline. The default is 0.10.</li>
+  </ul>
+  The exit status is 1 if a measurement exceeds the baseline by more than the tolerance.
+*/
+
+public class MacroBenchmark
+{
+    public static void main(@NotNull String[] args)
+      throws Exception
+    {
+        MacroBenchmark b = new MacroBenchmark();
+        if (!b.parseArguments(args)) {
+            System.exit(2);
+        }
+        System.exit(b.run() ? 0 : 1);
+    }
+
+    private int[] sizes = { 50, 200, 1000 };
+    private int[] threads = { 1, 4 };
+    private @NotNull String[] templateSets = { "templates/example-noframes", "templates/example-frames" };
+    private int runs = 3;
+    private @Nullable String antJar;
+    private @NotNull Path workDir = Path.of("build", "bench");
+    private @Nullable Path outFile;
+    private @Nullable Path baselineFile;
+    private double tolerance = 0.10;
+
+    private boolean parseArguments(@NotNull String[] args)
+    {
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + args[i]);
+                }
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "-sizes" -> sizes = parseInts(value);
+                    case "-threads" -> threads = parseInts(value);
+                    case "-templates" -> templateSets = value.split(",");
+                    case "-runs" -> runs = Integer.parseInt(value);
+                    case "-antjar" -> antJar = value;
+                    case "-work" -> workDir = Path.of(value);
+                    case "-out" -> outFile = Path.of(value);
+                    case "-baseline" -> baselineFile = Path.of(value);
+                    case "-tolerance" -> tolerance = Double.parseDouble(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+            if (antJar == null) {
+                throw new IllegalArgumentException("The -antjar option is required");
+            }
+            if (runs < 1) {
+                throw new IllegalArgumentException("At least one run is required");
+            }
+            return true;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return false;
+        }
+    }
+
+    private static int[] parseInts(@NotNull String s)
+    {
+        return Arrays.stream(s.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private boolean run()
+      throws Exception
+    {
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (int size : sizes) {
+            Path corpus = workDir.resolve("corpus-" + size);
+            if (!Files.isDirectory(corpus)) {
+                CorpusGenerator.generate(corpus, size);
+            }
+            for (String templateSet : templateSets) {
+                for (int threadCount : threads) {
+                    BenchmarkResult r = measure(corpus, templateSet, size, threadCount);
+                    System.out.printf("%-36s %6d ms %8d KB %5d ms GC %10d bytes%n",
+                      r.key(), r.wallMillis(), r.peakRssKB(), r.gcMillis(), r.outputBytes());
+                    results.add(r);
+                }
+            }
+        }
+
+        Path out = outFile != null ? outFile : workDir.resolve("results.json");
+        Files.createDirectories(out.toAbsolutePath().getParent());
+        Files.writeString(out, BenchmarkResult.toJson(results));
+        System.out.println("Results written to " + out);
+
+        if (baselineFile != null) {
+            List<BenchmarkResult> baseline = BenchmarkResult.fromJson(Files.readString(baselineFile));
+            return compare(results, baseline);
+        }
+        return true;
+    }
+
+    private @NotNull BenchmarkResult measure(@NotNull Path corpus,
+                                             @NotNull String templateSet,
+                                             int size,
+                                             int threadCount)
+      throws Exception
+    {
+        String name = Path.of(templateSet).getFileName().toString();
+        long[] wall = new long[runs];
+        long[] gc = new long[runs];
+        long rss = -1;
+        long outputBytes = 0;
+        for (int run = 0; run < runs; run++) {
+            Path output = workDir.resolve("output-" + name + "-" + size + "-" + threadCount);
+            deleteTree(output);
+            Files.createDirectories(output);
+            long[] m = runWorker(corpus, output, templateSet, threadCount);
+            wall[run] = m[0];
+            rss = Math.max(rss, m[1]);
+            gc[run] = m[2];
+            outputBytes = m[3];
+        }
+        return new BenchmarkResult(name, size, threadCount, median(wall), rss, median(gc), outputBytes);
+    }
+
+    private long @NotNull [] runWorker(@NotNull Path corpus,
+                                       @NotNull Path output,
+                                       @NotNull String templateSet,
+                                       int threadCount)
+      throws IOException, InterruptedException
+    {
+        assert antJar != null;
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = List.of(java,
+          "-XX:ActiveProcessorCount=" + threadCount,
+          "-cp", System.getProperty("java.class.path"),
+          BenchmarkWorker.class.getName(),
+          corpus.toAbsolutePath().toString(),
+          output.toAbsolutePath().toString(),
+          Path.of(templateSet).toAbsolutePath().toString(),
+          Path.of(antJar).toAbsolutePath().toString());
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.directory(output.toFile());
+        pb.redirectErrorStream(true);
+        Process p = pb.start();
+        String resultLine = null;
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(),
+          StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.startsWith(BenchmarkWorker.RESULT_PREFIX)) {
+                    resultLine = line.substring(BenchmarkWorker.RESULT_PREFIX.length());
+                }
+            }
+        }
+        int status = p.waitFor();
+        if (status != 0 || resultLine == null) {
+            throw new IOException("Benchmark worker failed with status " + status + " for " + templateSet);
+        }
+        return Arrays.stream(resultLine.trim().split(" ")).mapToLong(Long::parseLong).toArray();
+    }
+
+    private static long median(long @NotNull [] values)
+    {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private boolean compare(@NotNull List<BenchmarkResult> results, @NotNull List<BenchmarkResult> baseline)
+    {
+        boolean ok = true;
+        for (BenchmarkResult r : results) {
+            BenchmarkResult b = r.findIn(baseline);
+            if (b == null) {
+                System.out.println("No baseline for " + r.key());
+                continue;
+            }
+            ok &= check(r, "wall time", r.wallMillis(), b.wallMillis());
+            ok &= check(r, "peak RSS", r.peakRssKB(), b.peakRssKB());
+            ok &= check(r, "GC time", r.gcMillis(), b.gcMillis());
+            ok &= check(r, "output size", r.outputBytes(), b.outputBytes());
+        }
+        System.out.println(ok ? "No regressions" : "Regressions found");
+        return ok;
+    }
+
+    private boolean check(@NotNull BenchmarkResult r, @NotNull String what, long value, long baseline)
+    {
+        if (value < 0 || baseline <= 0) {
+            return true;
+        }
+        double change = (double) (value - baseline) / baseline;
+        if (change > tolerance) {
+            System.out.printf("REGRESSION %s %s: %d vs baseline %d (%+.1f%%)%n",
+              r.key(), what, value, baseline, 100 * change);
+            return false;
+        }
+        return true;
+    }
+
+    private static void deleteTree(@NotNull Path dir)
+      throws IOException
+    {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+}
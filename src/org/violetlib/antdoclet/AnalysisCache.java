@@ -28,6 +28,7 @@ public class AnalysisCache
 
     private final @NotNull DocUtils docUtils;
     private final @NotNull Map<TypeElement,TypeInfo> cache = new HashMap<>();
+    private final @NotNull CacheStatistics statistics = CacheStatistics.create("Type analysis", false);
 
     private AnalysisCache(@NotNull DocUtils docUtils)
     {
@@ -38,11 +39,32 @@ public class AnalysisCache
     {
         TypeInfo info = cache.get(te);
         if (info != null) {
+            statistics.recordHit();
             return info;
         }
 
+        statistics.recordMiss();
+        DocletEvents.TypeAnalysisEvent event = new DocletEvents.TypeAnalysisEvent();
+        event.begin();
         info = Analysis.getInfo(te, docUtils);
-        cache.put(te, info);
+        event.end();
+        if (event.shouldCommit()) {
+            event.typeName = te.getQualifiedName().toString();
+            if (info != null) {
+                event.attributeCount = info.getAttributes().size();
+                event.nestedElementCount = info.getNamedNestedElements().size()
+                  + info.getUnnamedNestedElements().size();
+            }
+            event.commit();
+        }
+        if (cache.put(te, info) == null) {
+            statistics.recordEntry(0);
+        }
         return info;
     }
+
+    public @NotNull CacheStatistics getStatistics()
+    {
+        return statistics;
+    }
 }
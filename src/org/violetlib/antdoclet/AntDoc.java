@@ -46,25 +46,34 @@ public class AntDoc
   implements Comparable<AntDoc>
 {
     // for use only by AntDocCache
-    public static @NotNull AntDoc create(@NotNull Environment env, @NotNull TypeElement te)
+    public static @NotNull AntDoc create(@NotNull Environment env, @NotNull TypeElement te, int id)
     {
-        return new AntDoc(env, te);
+        return new AntDoc(env, te, id);
     }
 
     private final @NotNull Environment env;
     private final @NotNull TypeElement thisType;
+    private final int id;
     private final @NotNull TypeInfo typeInfo;
-    private final @Nullable AugmentedDocCommentInfo docCommentInfo;
+    private final boolean isTagged;
+    private final @NotNull String antName;
+    private final @NotNull SortKey sortKey;
     private @Nullable List<AntDoc> nestedClasses;
     private @NotNull List<Property> properties;
     private @NotNull List<Reference> references;
 
+    // The sorted members are created when first requested
+    private @Nullable List<AttributeInfo> sortedAttributes;
+    private @Nullable List<NestedElementInfo> sortedNamedElements;
+    private @Nullable List<NestedElementInfo> sortedUnnamedElements;
+
     private static final List<String> antEntities = List.of("ant.task", "ant.type", "ant.prop", "ant.ref");
 
-    private AntDoc(@NotNull Environment env, @NotNull TypeElement thisType)
+    private AntDoc(@NotNull Environment env, @NotNull TypeElement thisType, int id)
     {
         this.env = env;
         this.thisType = thisType;
+        this.id = id;
         TypeInfo ti = env.getTypeInfo(thisType);
         if (ti == null) {
             String message = String.format("Should not create AntDoc for %s until type information is available",
@@ -72,7 +81,9 @@ public class AntDoc
             throw new IllegalStateException(message);
         }
         this.typeInfo = ti;
-        this.docCommentInfo = env.getDocCommentInfo(thisType);
+        this.isTagged = hasAntTag(env.getDocCommentInfo(thisType));
+        this.antName = getAntName(thisType);
+        this.sortKey = env.createSortKey(antName, thisType.getQualifiedName().toString());
         properties = discoverProperties();
         references = discoverReferences();
     }
@@ -244,9 +255,10 @@ public class AntDoc
     @SuppressWarnings("ClassEscapesDefinedScope")
     public @NotNull List<Attribute> getAttributes()
     {
-        Map<String,AttributeInfo> am = typeInfo.getAttributes();
-        List<AttributeInfo> as = sortAttributes(am.values());
-        return toAttributes(as);
+        if (sortedAttributes == null) {
+            sortedAttributes = sortAttributes(typeInfo.getAttributes().values());
+        }
+        return toAttributes(sortedAttributes);
     }
 
     private @NotNull List<Attribute> toAttributes(@NotNull List<AttributeInfo> as)
@@ -262,7 +274,7 @@ public class AntDoc
     {
         List<AttributeInfo> result = new ArrayList<>(as);
         result.sort(new AttributeComparator());
-        return result;
+        return List.copyOf(result);
     }
 
     private class AttributeComparator
@@ -670,10 +682,11 @@ public class AntDoc
     @SuppressWarnings("ClassEscapesDefinedScope")
     public @NotNull List<NestedElement> getNamedElements()
     {
-        List<NestedElementInfo> es = new ArrayList<>(typeInfo.getNamedNestedElements().values());
-        es.sort(new NestedElementComparator());
+        if (sortedNamedElements == null) {
+            sortedNamedElements = sortNestedElements(typeInfo.getNamedNestedElements().values());
+        }
         List<NestedElement> result = new ArrayList<>();
-        for (NestedElementInfo e : es) {
+        for (NestedElementInfo e : sortedNamedElements) {
             result.add(toNestedElement(e));
         }
         return result;
@@ -687,10 +700,11 @@ public class AntDoc
     @SuppressWarnings("ClassEscapesDefinedScope")
     public @NotNull List<NestedElement> getNestedElementTypes()
     {
-        List<NestedElementInfo> es = new ArrayList<>(typeInfo.getUnnamedNestedElements());
-        es.sort(new NestedElementComparator());
+        if (sortedUnnamedElements == null) {
+            sortedUnnamedElements = sortNestedElements(typeInfo.getUnnamedNestedElements());
+        }
         List<NestedElement> result = new ArrayList<>();
-        for (NestedElementInfo e : es) {
+        for (NestedElementInfo e : sortedUnnamedElements) {
             if (env.isIncludedOrForeign(e.types.getFirst())) {
                 result.add(toNestedElement(e));
             }
@@ -699,98 +713,36 @@ public class AntDoc
     }
 
     /**
-      Return all referenced types, without checking for their inclusion status.
+      Add the types referred to by this entity to a reference graph, without checking for their inclusion status.
     */
 
-    public @NotNull Set<TypeElement> getAllReferencedTypes()
+    public void addReferences(@NotNull TypeReferenceGraph graph)
     {
-        Set<TypeElement> result = new HashSet<>();
-        result.addAll(getAllNamedNestedElementTypes());
-        result.addAll(getAllUnnamedNestedElementTypes());
-        result.addAll(getAllAttributeTypes());
-        result.addAll(getAllPropertyTypes());
-        result.addAll(getAllReferenceTypes());
-        return result;
-    }
-
-    /**
-      Return all property types, without checking for their inclusion status.
-    */
-
-    public @NotNull Set<TypeElement> getAllPropertyTypes()
-    {
-        Set<TypeElement> result = new HashSet<>();
-        for (Property p : properties) {
-            TypeElement nte = getPropertyTypeElement(p);
-            if (nte != null) {
-                result.add(nte);
-            }
+        graph.addNode(thisType);
+        for (NestedElementInfo info : typeInfo.getNamedNestedElements().values()) {
+            addReference(graph, env.getTypeElement(info.types.getFirst()), ReferenceKind.NESTED_ELEMENT);
         }
-        return result;
-    }
-
-    /**
-      Return all reference types, without checking for their inclusion status.
-    */
-
-    public @NotNull Set<TypeElement> getAllReferenceTypes()
-    {
-        Set<TypeElement> result = new HashSet<>();
-        for (Reference p : references) {
-            TypeElement nte = getReferenceTypeElement(p);
-            if (nte != null) {
-                result.add(nte);
-            }
+        for (NestedElementInfo info : typeInfo.getUnnamedNestedElements()) {
+            addReference(graph, env.getTypeElement(info.types.getFirst()), ReferenceKind.NESTED_ELEMENT);
         }
-        return result;
-    }
-
-    /**
-      Return all attribute types, without checking for their inclusion status.
-    */
-
-    public @NotNull Set<TypeElement> getAllAttributeTypes()
-    {
-        Set<TypeElement> result = new HashSet<>();
         for (AttributeInfo info : typeInfo.getAttributes().values()) {
-            TypeElement nte = env.getTypeElement(info.type);
-            if (nte != null) {
-                result.add(nte);
-            }
+            addReference(graph, env.getTypeElement(info.type), ReferenceKind.ATTRIBUTE);
         }
-        return result;
-    }
-
-    /**
-      Return all unnamed nested element types, without checking for their inclusion status.
-    */
-
-    public @NotNull Set<TypeElement> getAllUnnamedNestedElementTypes()
-    {
-        Set<TypeElement> result = new HashSet<>();
-        for (NestedElementInfo info : typeInfo.getUnnamedNestedElements()) {
-            TypeElement nte = env.getTypeElement(info.types.getFirst());
-            if (nte != null) {
-                result.add(nte);
-            }
+        for (Property p : properties) {
+            addReference(graph, getPropertyTypeElement(p), ReferenceKind.PROPERTY);
+        }
+        for (Reference r : references) {
+            addReference(graph, getReferenceTypeElement(r), ReferenceKind.REFERENCE);
         }
-        return result;
     }
 
-    /**
-      Return all named nested element types, without checking for their inclusion status.
-    */
-
-    public @NotNull Set<TypeElement> getAllNamedNestedElementTypes()
+    private void addReference(@NotNull TypeReferenceGraph graph,
+                              @Nullable TypeElement te,
+                              @NotNull ReferenceKind kind)
     {
-        Set<TypeElement> result = new HashSet<>();
-        for (NestedElementInfo info : typeInfo.getNamedNestedElements().values()) {
-            TypeElement nte = env.getTypeElement(info.types.getFirst());
-            if (nte != null) {
-                result.add(nte);
-            }
+        if (te != null) {
+            graph.addReference(thisType, te, kind);
         }
-        return result;
     }
 
     /**
@@ -918,6 +870,13 @@ public class AntDoc
         return new NestedElement(info, typeNames);
     }
 
+    private @NotNull List<NestedElementInfo> sortNestedElements(@NotNull Collection<NestedElementInfo> es)
+    {
+        List<NestedElementInfo> result = new ArrayList<>(es);
+        result.sort(new NestedElementComparator());
+        return List.copyOf(result);
+    }
+
     private class NestedElementComparator
       implements Comparator<NestedElementInfo>
     {
@@ -1022,6 +981,11 @@ public class AntDoc
     */
 
     public boolean isTagged()
+    {
+        return isTagged;
+    }
+
+    private static boolean hasAntTag(@Nullable AugmentedDocCommentInfo docCommentInfo)
     {
         if (docCommentInfo != null) {
             for (String en : antEntities) {
@@ -1081,7 +1045,7 @@ public class AntDoc
     // For template use
     public @NotNull String getAntName()
     {
-        return getAntName(thisType);
+        return antName;
     }
 
     /**
@@ -1211,11 +1175,145 @@ public class AntDoc
 //        return String.format("String [%s]", s);
 //    }
 
+    /**
+      Return the elements whose documentation comments are used to create the detailed information about this entity.
+      Comments that are used only when another comment is missing are not included.
+    */
+
+    public @NotNull List<Element> getCommentedElements()
+    {
+        List<Element> result = new ArrayList<>();
+        result.add(thisType);
+        for (Property p : properties) {
+            result.add(p.field);
+        }
+        for (Reference r : references) {
+            result.add(r.field);
+        }
+        for (Attribute a : getAttributes()) {
+            result.add(a.info.definingMethod);
+        }
+        for (NestedElement e : getNamedElements()) {
+            result.add(e.info.definingMethod);
+        }
+        for (NestedElement e : getNestedElementTypes()) {
+            result.add(e.info.definingMethod);
+        }
+        ExecutableElement m = typeInfo.getAddTaskMethod();
+        if (m != null) {
+            result.add(m);
+        }
+        m = typeInfo.getAddTextMethod();
+        if (m != null) {
+            result.add(m);
+        }
+        return result;
+    }
+
+    /**
+      Create an immutable model of this entity. The model contains the information needed for navigation and for
+      links. The remaining information is obtained from the detail source when it is needed.
+      @param index The index used by the model to resolve references to other entities.
+      @param detailSource The source of the detailed information, which is created by {@link #createDetail}.
+    */
+
+    public @NotNull EntityModel createModel(@NotNull ModelIndex index, @NotNull EntityDetailSource detailSource)
+    {
+        return new EntityModel(getAntName(), getClassName(), getFullClassName(), isTask(), isTaskContainer(),
+          isIgnored(), isIncluded(), isTagged(), supportsText(), getAntCategory(), getAntCategoryPrefix(),
+          getShortDescription(), index, detailSource);
+    }
+
+    /**
+      Create the detailed information about this entity again, after it has been released. Diagnostics were reported
+      when it was first created and are not reported again.
+    */
+
+    public @NotNull EntityDetail recreateDetail()
+    {
+        env.setDiagnosticsSuppressed(true);
+        try {
+            return createDetail();
+        } finally {
+            env.setDiagnosticsSuppressed(false);
+        }
+    }
+
+    /**
+      Create the detailed information about this entity. All descriptions are rendered and all links are resolved.
+    */
+
+    public @NotNull EntityDetail createDetail()
+    {
+        List<AttributeModel> attributes = new ArrayList<>();
+        for (Attribute a : getAttributes()) {
+            attributes.add(new AttributeModel(getAttributeName(a), getAttributeType(a), getAttributeTypeLinked(a),
+              getAttributeTypes(a), getAttributeTypesLinked(a), getAttributeDescription(a), getAttributeRequired(a),
+              getAttributeNotRequired(a), env.getSourceLocation(a.info.definingMethod)));
+        }
+
+        List<PropertyModel> properties = new ArrayList<>();
+        for (Property p : getProperties()) {
+            properties.add(new PropertyModel(getPropertyName(p), getPropertyType(p), getPropertyTypeLinked(p),
+              getPropertyDescription(p)));
+        }
+
+        List<ReferenceModel> references = new ArrayList<>();
+        for (Reference r : getReferences()) {
+            references.add(new ReferenceModel(getReferenceName(r), getReferenceType(r), getReferenceTypeLinked(r),
+              getReferenceDescription(r)));
+        }
+
+        List<NestedElementModel> namedElements = new ArrayList<>();
+        for (NestedElement e : getNamedElements()) {
+            namedElements.add(createNestedElementModel(e, getNamedElementName(e),
+              getNamedNestedElementDescription(e)));
+        }
+
+        List<NestedElementModel> nestedElementTypes = new ArrayList<>();
+        for (NestedElement e : getNestedElementTypes()) {
+            nestedElementTypes.add(createNestedElementModel(e, null, getNestedElementTypeDescription(e)));
+        }
+
+        List<String> nestedClassNames = new ArrayList<>();
+        for (AntDoc d : getNestedClasses()) {
+            nestedClassNames.add(d.getFullClassName());
+        }
+
+        return new EntityDetail(getDescription(), getNestedTaskDescription(), getTextDescription(), attributes,
+          properties, references, namedElements, nestedElementTypes, nestedClassNames);
+    }
+
+    private @NotNull NestedElementModel createNestedElementModel(@NotNull NestedElement e,
+                                                                 @Nullable String name,
+                                                                 @Nullable String description)
+    {
+        TypeElement te = env.getTypeElement(e.info.types.getFirst());
+        String typeClassName = te != null ? te.getQualifiedName().toString() : null;
+        List<String> typeClassNames = new ArrayList<>(e.info.types.size());
+        for (TypeMirror type : e.info.types) {
+            TypeElement t = env.getTypeElement(type);
+            if (t != null) {
+                typeClassNames.add(t.getQualifiedName().toString());
+            }
+        }
+        String typeNames = e.typeNames != null ? e.typeNames : getTypeNames(e.info.types);
+        return new NestedElementModel(name, typeClassName, typeClassNames, typeNames, getNestedElementTypeLinked(e),
+          getNestedElementTypesLinked(e), description, env.getSourceLocation(e.info.definingMethod));
+    }
+
     public int compareTo(@NotNull AntDoc otherDoc)
     {
-        String fullName1 = getAntName();
-        String fullName2 = otherDoc.getAntName();
-        return fullName1.compareToIgnoreCase(fullName2);
+        return sortKey.compareTo(otherDoc.sortKey);
+    }
+
+    /**
+      Return the dense integer ID assigned to this AntDoc by the AntDocCache.
+    */
+
+    public int getId()
+    {
+        return id;
     }
 
     public @NotNull TypeElement getTypeElement()
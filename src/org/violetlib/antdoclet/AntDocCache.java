@@ -12,11 +12,16 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.lang.model.element.TypeElement;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
   Cache the results of analyzing classes. Probably good for performance, but essential to avoid recursion.
+  <p>
+  Each AntDoc is assigned a dense integer ID, in order of creation. The ID can be used to index arrays and bit sets
+  that describe AntDocs.
 */
 
 public class AntDocCache
@@ -28,6 +33,8 @@ public class AntDocCache
 
     private final @NotNull Environment env;
     private final @NotNull Map<TypeElement,AntDoc> cache = new HashMap<>();
+    private final @NotNull List<AntDoc> docs = new ArrayList<>();
+    private final @NotNull CacheStatistics statistics = CacheStatistics.create("AntDoc", false);
 
     private AntDocCache(@NotNull Environment env)
     {
@@ -41,23 +48,56 @@ public class AntDocCache
 
     public @Nullable AntDoc get(@NotNull TypeElement te)
     {
-        return cache.get(te);
+        AntDoc d = cache.get(te);
+        if (d != null) {
+            statistics.recordHit();
+        } else {
+            statistics.recordMiss();
+        }
+        return d;
     }
 
     public @Nullable AntDoc getOrCreate(@NotNull TypeElement te)
     {
         AntDoc d = cache.get(te);
         if (d != null) {
+            statistics.recordHit();
             return d;
         }
-        d = AntDoc.create(env, te);
+        statistics.recordMiss();
+        d = AntDoc.create(env, te, docs.size());
         cache.put(te, d);
+        docs.add(d);
+        statistics.recordEntry(0);
         return d;
     }
 
+    public @NotNull CacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+      Return the number of AntDocs that have been created. The IDs of the AntDocs are less than this number.
+    */
+
+    public int size()
+    {
+        return docs.size();
+    }
+
+    /**
+      Return the AntDoc with the specified ID.
+    */
+
+    public @NotNull AntDoc get(int id)
+    {
+        return docs.get(id);
+    }
+
     public @Nullable AntDoc get(@NotNull String userName)
     {
-        for (AntDoc d : cache.values()) {
+        for (AntDoc d : docs) {
             if (userName.equals(d.getAntName())) {
                 return d;
             }
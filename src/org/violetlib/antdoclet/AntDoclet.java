@@ -35,12 +35,24 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.lang.model.SourceVersion;
+import javax.tools.Diagnostic;
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
   AntDoclet Main class
@@ -59,8 +71,22 @@ public class AntDoclet
 
     private @Nullable String docTitle = "Ant Tasks";
     private @Nullable String[] templates;
-    private @NotNull String templatesDir = ".";
+    private @NotNull String[] templatesDirs = new String[] { "." };
     private @NotNull String[] outputDirs = new String[] { "." };
+    private @NotNull String[] inlineTagHandlers = new String[0];
+    private @Nullable Locale collationLocale;
+    private int docCommentCacheSize;
+    private int pipelineDepth = 16;
+    private boolean showStatistics;
+    private @Nullable String jsonFile;
+    private @Nullable String binaryModelFile;
+    private boolean createSearchIndex;
+    private boolean compressOutput;
+    private boolean minifyOutput;
+    private boolean fingerprintAssets;
+    private int indexPageSize;
+    private boolean writeIndexChunks;
+    private boolean linkSource;
 
     public AntDoclet()
     {
@@ -73,38 +99,320 @@ public class AntDoclet
 
     private boolean start(@NotNull DocletEnvironment docletEnvironment)
     {
-        // Init Velocity-template Generator
-        VelocityFacade velocity;
+        assert reporter != null;
+
+        InlineTagRegistry inlineTags = createInlineTagRegistry();
+        DocletEvents.PhaseEvent classification = new DocletEvents.PhaseEvent();
+        classification.begin();
+        Environment env = Environment.create(docletEnvironment, reporter, inlineTags, collationLocale,
+          docCommentCacheSize);
+        int entityCount = env.getRoot().getAllDocumentedEntities().size();
+        commitPhase(classification, "classification", entityCount);
+
+        // Documentation comments are analyzed in source order, which is cheaper than analyzing them in the order in
+        // which the entities are extracted.
+
+        DocletEvents.PhaseEvent prefetch = new DocletEvents.PhaseEvent();
+        prefetch.begin();
+        env.prefetchDocComments();
+        commitPhase(prefetch, "prefetch", entityCount);
+
+        // The detailed information about each entity is created on this thread, which is the only thread that uses
+        // the compiler. If pipelining is enabled, templates are rendered concurrently on other threads. Detailed
+        // information is released once it has been used only if memory use is bounded, as passes over the whole
+        // model (such as the search index) would otherwise create it again.
+
+        boolean releasesDetails = env.getDocCommentCache().isBounded();
+        ModelPipeline pipeline = ModelExtractor.createPipeline(env.getRoot(), pipelineDepth, releasesDetails);
+
+        OutputCompressor compressor = compressOutput ? OutputCompressor.create() : null;
+        List<RenderJob> jobs = createRenderJobs(pipeline.getRoot(), compressor);
+        if (jobs == null) {
+            pipeline.close();
+            return false;
+        }
+
+        // Each consumer of the model runs on its own thread
+
+        List<Runnable> consumers = new ArrayList<>();
+        for (RenderJob job : jobs) {
+            consumers.add(pipeline.createConsumer(() -> render(job)));
+        }
+        List<String> exportErrors = Collections.synchronizedList(new ArrayList<>());
+        if (jsonFile != null) {
+            consumers.add(pipeline.createConsumer(createExporter(jsonFile, ModelJsonExporter::export,
+              pipeline.getRoot(), exportErrors)));
+        }
+        if (binaryModelFile != null) {
+            consumers.add(pipeline.createConsumer(createExporter(binaryModelFile, ModelBinaryExporter::export,
+              pipeline.getRoot(), exportErrors)));
+        }
+
         try {
-            velocity = new VelocityFacade(new File("."), templatesDir);
-        } catch (Exception e) {
-            e.printStackTrace();
+            if (pipelineDepth > 0) {
+                List<Thread> threads = startConsumers(consumers, pipeline::close);
+                extract(pipeline, entityCount);
+                join(threads);
+            } else {
+                extract(pipeline, entityCount);
+                join(startConsumers(consumers, null));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return false;
         }
 
-        assert reporter != null;
+        if (compressor != null) {
+            try {
+                compressor.close();
+                reporter.print(Diagnostic.Kind.NOTE, compressor.getSummary());
+            } catch (IOException e) {
+                reporter.print(Diagnostic.Kind.ERROR, "Unable to write compressed page: " + e);
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
 
-        Environment env = Environment.create(docletEnvironment, reporter);
+        if (!exportErrors.isEmpty()) {
+            for (String message : exportErrors) {
+                reporter.print(Diagnostic.Kind.ERROR, message);
+            }
+            return false;
+        }
 
-        // Set global parameters to the templates
-        velocity.setAttribute("velocity", velocity);
-        velocity.setAttribute("title", docTitle);
-        velocity.setAttribute("antroot", env.getRoot());
+        DocCommentCache docCommentCache = env.getDocCommentCache();
+        if (docCommentCache.isBounded()) {
+            reporter.print(Diagnostic.Kind.NOTE, String.format("Documentation comment cache: %d evicted, %d rebuilt",
+              docCommentCache.getEvictionCount(), docCommentCache.getRebuildCount()));
+        }
 
+        if (showStatistics) {
+            reporter.print(Diagnostic.Kind.NOTE, "Cache statistics:\n"
+              + CacheStatistics.formatTable(env.getCacheStatistics()));
+            reporter.print(Diagnostic.Kind.NOTE, String.format("Model pipeline: %d details created again",
+              pipeline.getRecreatedCount()));
+        }
+
+        return true;
+    }
+
+    private void extract(@NotNull ModelPipeline pipeline, int entityCount)
+    {
+        DocletEvents.PhaseEvent event = new DocletEvents.PhaseEvent();
+        event.begin();
+        pipeline.run();
+        commitPhase(event, "extraction", entityCount);
+    }
+
+    private void render(@NotNull RenderJob job)
+    {
+        DocletEvents.PhaseEvent event = new DocletEvents.PhaseEvent();
+        event.begin();
+        renderTemplates(job);
+        commitPhase(event, "rendering", 0);
+    }
+
+    private static void commitPhase(@NotNull DocletEvents.PhaseEvent event, @NotNull String phase, int entityCount)
+    {
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.entityCount = entityCount;
+            event.commit();
+        }
+    }
+
+    /**
+      The templates that are rendered in order into one output directory, using one facade. If other jobs are rendered
+      concurrently, the console output of the job is buffered.
+    */
+
+    private record RenderJob(@NotNull VelocityFacade velocity, @NotNull List<String> templates, boolean isBuffered)
+    {
+    }
+
+    /**
+      Create the facades used to render the templates. The templates that write to the same output directory share
+      a facade and are rendered in the order specified. The templates that write to different output directories
+      have separate facades and are rendered concurrently.
+      <p>
+      Templates are loaded using a search path. The search path of a facade starts with the templates directories
+      that correspond to its templates, followed by the other templates directories, so that a template may still be
+      found in any of the directories specified. If there are several facades, each has its own Velocity log file.
+      @return the render jobs, or null if a facade could not be created.
+    */
+
+    private @Nullable List<RenderJob> createRenderJobs(@NotNull RootModel root,
+                                                      @Nullable OutputCompressor compressor)
+    {
+        Map<File,List<String>> templatesByOutputDir = new LinkedHashMap<>();
+        Map<File,Set<String>> templatesDirsByOutputDir = new HashMap<>();
         if (templates != null) {
             for (int i = 0; i < templates.length; i++) {
+                // A template with no corresponding output or templates directory uses the last one specified
+                File dir = new File(select(outputDirs, i)).getAbsoluteFile().toPath().normalize().toFile();
+                templatesByOutputDir.computeIfAbsent(dir, k -> new ArrayList<>()).add(templates[i]);
+                templatesDirsByOutputDir.computeIfAbsent(dir, k -> new LinkedHashSet<>())
+                  .add(select(templatesDirs, i));
+            }
+        }
+        for (Set<String> dirs : templatesDirsByOutputDir.values()) {
+            dirs.addAll(List.of(templatesDirs));
+        }
+
+        // The search index is built once, when first written, and shared by all template sets
+        SearchIndex searchIndex = createSearchIndex ? SearchIndex.create(root) : null;
+        SourcePages sourcePages = linkSource ? SourcePages.create(root) : null;
+
+        boolean isConcurrent = templatesByOutputDir.size() > 1;
+        List<RenderJob> result = new ArrayList<>();
+        for (Map.Entry<File,List<String>> e : templatesByOutputDir.entrySet()) {
+            File outputDir = e.getKey();
+            VelocityFacade velocity;
+            try {
+                String path = String.join(",", templatesDirsByOutputDir.get(outputDir));
+                // The first facade uses the default log file
+                File logFile = result.isEmpty() ? null : new File("velocity-" + (result.size() + 1) + ".log");
+                velocity = new VelocityFacade(outputDir, path, logFile);
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                return null;
+            }
+
+            // Set global parameters to the templates
+            velocity.setAttribute("velocity", velocity);
+            velocity.setAttribute("title", docTitle);
+            velocity.setAttribute("antroot", root);
+            velocity.setAttribute("indexPageSize", indexPageSize);
+            if (writeIndexChunks) {
+                velocity.setAttribute("indexChunks", true);
+            }
+            velocity.setCompressor(compressor);
+            if (minifyOutput || fingerprintAssets) {
+                velocity.setPostProcessor(OutputPostProcessor.create(outputDir, minifyOutput, fingerprintAssets));
+            }
+            if (searchIndex != null) {
+                velocity.setAttribute("searchIndex", searchIndex);
+            }
+            if (sourcePages != null) {
+                velocity.setAttribute("sourcePages", sourcePages);
+            }
+            result.add(new RenderJob(velocity, e.getValue(), isConcurrent));
+        }
+        return result;
+    }
+
+    private static @NotNull String select(@NotNull String[] values, int index)
+    {
+        return values.length > 0 ? values[Math.min(index, values.length - 1)] : ".";
+    }
+
+    private interface ModelExporter
+    {
+        void export(@NotNull RootModel root, @NotNull Path file)
+          throws IOException;
+    }
+
+    /**
+      Create a consumer of the model that writes the model to a file. Errors are recorded for reporting after all
+      consumers have finished.
+    */
+
+    private static @NotNull Runnable createExporter(@NotNull String file,
+                                                    @NotNull ModelExporter exporter,
+                                                    @NotNull RootModel root,
+                                                    @NotNull List<String> errors)
+    {
+        return () -> {
+            try {
+                exporter.export(root, Path.of(file));
+            } catch (Exception e) {
+                errors.add("Unable to write " + file + ": " + e);
+            }
+        };
+    }
+
+    /**
+      Start a thread for each consumer of the model.
+      @param onCompletion If not null, this action is performed when all consumers have finished.
+    */
+
+    private @NotNull List<Thread> startConsumers(@NotNull List<Runnable> consumers, @Nullable Runnable onCompletion)
+    {
+        if (consumers.isEmpty() && onCompletion != null) {
+            onCompletion.run();
+        }
+
+        AtomicInteger remaining = new AtomicInteger(consumers.size());
+        List<Thread> threads = new ArrayList<>(consumers.size());
+        for (int i = 0; i < consumers.size(); i++) {
+            Runnable consumer = consumers.get(i);
+            String name = consumers.size() > 1 ? "AntDoclet renderer " + (i + 1) : "AntDoclet renderer";
+            Thread t = new Thread(() -> {
                 try {
-                    if (outputDirs.length > i) {
-                        velocity.setOutputDir(new File(outputDirs[i]));
+                    consumer.run();
+                } finally {
+                    if (remaining.decrementAndGet() == 0 && onCompletion != null) {
+                        onCompletion.run();
                     }
-                    velocity.eval(templates[i], new OutputStreamWriter(System.out));
-                } catch (Exception e) {
-                    e.printStackTrace();
                 }
+            }, name);
+            t.start();
+            threads.add(t);
+        }
+        return threads;
+    }
+
+    private static void join(@NotNull List<Thread> threads)
+      throws InterruptedException
+    {
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    private void renderTemplates(@NotNull RenderJob job)
+    {
+        // The console output of concurrent jobs is written when each job completes, so that the progress messages
+        // of different jobs are not interleaved.
+
+        StringWriter buffer = job.isBuffered() ? new StringWriter() : null;
+        Writer console = buffer != null ? buffer : new OutputStreamWriter(System.out);
+        for (String template : job.templates()) {
+            try {
+                job.velocity().eval(template, console);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+        if (buffer != null) {
+            synchronized (System.out) {
+                System.out.print(buffer);
+                System.out.flush();
             }
         }
+    }
 
-        return true;
+    private @NotNull InlineTagRegistry createInlineTagRegistry()
+    {
+        assert reporter != null;
+
+        InlineTagRegistry registry = InlineTagRegistry.create();
+        for (String className : inlineTagHandlers) {
+            try {
+                Object o = Class.forName(className).getDeclaredConstructor().newInstance();
+                if (o instanceof InlineTagHandler h) {
+                    registry.register(h);
+                } else {
+                    reporter.print(Diagnostic.Kind.ERROR, "Not an inline tag handler: " + className);
+                }
+            } catch (Exception e) {
+                reporter.print(Diagnostic.Kind.ERROR, "Unable to create inline tag handler " + className + ": " + e);
+            }
+        }
+        return registry;
     }
 
     private abstract class MyOption
@@ -205,7 +513,173 @@ public class AntDoclet
         return new MyOption("-templatesdir", 1) {
             @Override
             public boolean process(String opt, List<String> args) {
-                templatesDir = args.get(0); // comma-separated filenames
+                templatesDirs = args.get(0).split(","); // comma-separated directories
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createInlineTagsOption()
+    {
+        return new MyOption("-inlinetags", 1) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                inlineTagHandlers = args.get(0).split(","); // comma-separated class names
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createCollationOption()
+    {
+        return new MyOption("-collation", 1) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                collationLocale = Locale.forLanguageTag(args.get(0)); // e.g. de-DE
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createCommentCacheSizeOption()
+    {
+        return new MyOption("-commentcachesize", 1) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                try {
+                    docCommentCacheSize = Integer.parseInt(args.get(0)); // maximum number of cached comments
+                    return docCommentCacheSize >= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        };
+    }
+
+    private @NotNull Option createPipelineDepthOption()
+    {
+        return new MyOption("-pipelinedepth", 1) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                try {
+                    pipelineDepth = Integer.parseInt(args.get(0)); // zero to render after analysis is complete
+                    return pipelineDepth >= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        };
+    }
+
+    private @NotNull Option createStatisticsOption()
+    {
+        return new MyOption("-stats", 0) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                showStatistics = true;
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createJsonOption()
+    {
+        return new MyOption("-json", 1) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                jsonFile = args.get(0); // file to which the model is exported
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createBinaryModelOption()
+    {
+        return new MyOption("-binarymodel", 1) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                binaryModelFile = args.get(0); // file to which the model is exported
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createSearchIndexOption()
+    {
+        return new MyOption("-searchindex", 0) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                createSearchIndex = true;
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createGzipOption()
+    {
+        return new MyOption("-gzip", 0) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                compressOutput = true;
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createMinifyOption()
+    {
+        return new MyOption("-minify", 0) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                minifyOutput = true;
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createFingerprintOption()
+    {
+        return new MyOption("-fingerprint", 0) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                fingerprintAssets = true;
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createIndexPageSizeOption()
+    {
+        return new MyOption("-indexpagesize", 1) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                try {
+                    indexPageSize = Integer.parseInt(args.get(0)); // zero for a single page
+                    return indexPageSize >= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        };
+    }
+
+    private @NotNull Option createIndexChunksOption()
+    {
+        return new MyOption("-indexchunks", 0) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                writeIndexChunks = true;
+                return true;
+            }
+        };
+    }
+
+    private @NotNull Option createLinkSourceOption()
+    {
+        return new MyOption("-linksource", 0) {
+            @Override
+            public boolean process(String opt, List<String> args) {
+                linkSource = true;
                 return true;
             }
         };
@@ -232,6 +706,20 @@ public class AntDoclet
         options.add(createDocTitleOption());
         options.add(createTemplatesOption());
         options.add(createTemplatesDirOption());
+        options.add(createInlineTagsOption());
+        options.add(createCollationOption());
+        options.add(createCommentCacheSizeOption());
+        options.add(createPipelineDepthOption());
+        options.add(createStatisticsOption());
+        options.add(createJsonOption());
+        options.add(createBinaryModelOption());
+        options.add(createSearchIndexOption());
+        options.add(createGzipOption());
+        options.add(createMinifyOption());
+        options.add(createFingerprintOption());
+        options.add(createIndexPageSizeOption());
+        options.add(createIndexChunksOption());
+        options.add(createLinkSourceOption());
         return options;
     }
 
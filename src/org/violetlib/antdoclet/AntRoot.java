@@ -48,14 +48,16 @@ public class AntRoot
                                           @NotNull Set<AntDoc> primaryTypes,
                                           @NotNull Set<AntDoc> auxiliaryTypes,
                                           @NotNull Set<AntDoc> uncategorizedTasks,
-                                          @NotNull Set<AntDoc> uncategorizedTypes
+                                          @NotNull Set<AntDoc> uncategorizedTypes,
+                                          @NotNull TypeReferenceGraph referenceGraph
     )
     {
         return new AntRoot(docCache, categories, primaryTasks, primaryTypes, auxiliaryTypes, uncategorizedTasks,
-          uncategorizedTypes);
+          uncategorizedTypes, referenceGraph);
     }
 
     private final @NotNull AntDocCache docCache;
+    private final @NotNull TypeReferenceGraph referenceGraph;
 
     private final @NotNull Set<String> categories;
     private final @NotNull Set<String> extendedCategories;
@@ -68,9 +70,14 @@ public class AntRoot
     private final @NotNull Set<AntDoc> auxiliaryTypes;
     private final @NotNull Set<AntDoc> allEntities;
     private final @NotNull Set<AntDoc> allTypes;
-    private final @NotNull Map<String,List<AntDoc>> primaryByCategory = new HashMap<>();
-    private final @NotNull Map<String,List<AntDoc>> primaryTasksByCategory = new HashMap<>();
-    private final @NotNull Map<String,List<AntDoc>> primaryTypesByCategory = new HashMap<>();
+    private final @NotNull CategoryIndex<AntDoc> categoryIndex;
+
+    // Membership of AntDocs, indexed by AntDoc ID
+    private final @NotNull BitSet primaryTaskIds;
+    private final @NotNull BitSet primaryTypeIds;
+    private final @NotNull BitSet auxiliaryTypeIds;
+    private final @NotNull BitSet uncategorizedIds;
+    private final @NotNull BitSet includedIds;
 
     private AntRoot(@NotNull AntDocCache docCache,
                     @NotNull Set<String> categories,
@@ -78,10 +85,12 @@ public class AntRoot
                     @NotNull Set<AntDoc> primaryTypes,
                     @NotNull Set<AntDoc> auxiliaryTypes,
                     @NotNull Set<AntDoc> uncategorizedTasks,
-                    @NotNull Set<AntDoc> uncategorizedTypes
+                    @NotNull Set<AntDoc> uncategorizedTypes,
+                    @NotNull TypeReferenceGraph referenceGraph
     )
     {
         this.docCache = docCache;
+        this.referenceGraph = referenceGraph;
         this.categories = categories;
         int uncategorizedEntityCount = uncategorizedTasks.size() + uncategorizedTypes.size();
         this.extendedCategories = createExtendedCategories(categories, uncategorizedEntityCount > 0);
@@ -94,12 +103,27 @@ public class AntRoot
         this.allUncategorized = createAllUncategorized(uncategorizedTasks, uncategorizedTypes);
         this.allEntities = combine(allPrimary, auxiliaryTypes);
         this.allTypes = combine(primaryTypes, auxiliaryTypes);
+        this.categoryIndex = CategoryIndex.create(allPrimary);
+        this.primaryTaskIds = toBitSet(primaryTasks);
+        this.primaryTypeIds = toBitSet(primaryTypes);
+        this.auxiliaryTypeIds = toBitSet(auxiliaryTypes);
+        this.uncategorizedIds = toBitSet(allUncategorized);
+        this.includedIds = toBitSet(allEntities);
+    }
+
+    private static @NotNull BitSet toBitSet(@NotNull Set<AntDoc> ds)
+    {
+        BitSet result = new BitSet();
+        for (AntDoc d : ds) {
+            result.set(d.getId());
+        }
+        return result;
     }
 
     private @NotNull Set<AntDoc> createAllPrimary(@NotNull Set<AntDoc> primaryTasks,
                                                   @NotNull Set<AntDoc> primaryTypes)
     {
-        Set<AntDoc> result = new HashSet<>();
+        Set<AntDoc> result = new TreeSet<>();
         result.addAll(primaryTasks);
         result.addAll(primaryTypes);
         return Collections.unmodifiableSet(result);
@@ -137,10 +161,45 @@ public class AntRoot
     public boolean isIncluded(@NotNull TypeElement te)
     {
         AntDoc d = docCache.get(te);
-        if (d != null) {
-            return primaryTasks.contains(d) || primaryTypes.contains(d) || auxiliaryTypes.contains(d);
-        }
-        return false;
+        return d != null && includedIds.get(d.getId());
+    }
+
+    /**
+      Indicate whether the specified entity has a documentation page
+    */
+
+    public boolean isIncluded(@NotNull AntDoc d)
+    {
+        return includedIds.get(d.getId());
+    }
+
+    /**
+      Indicate whether the specified entity is a primary entity (it appears in a menu).
+    */
+
+    public boolean isPrimary(@NotNull AntDoc d)
+    {
+        int id = d.getId();
+        return primaryTaskIds.get(id) || primaryTypeIds.get(id);
+    }
+
+    /**
+      Indicate whether the specified entity is an auxiliary entity (it has a documentation page but does not appear
+      in a menu).
+    */
+
+    public boolean isAuxiliary(@NotNull AntDoc d)
+    {
+        return auxiliaryTypeIds.get(d.getId());
+    }
+
+    /**
+      Indicate whether the specified entity is a primary entity with no category.
+    */
+
+    public boolean isUncategorized(@NotNull AntDoc d)
+    {
+        return uncategorizedIds.get(d.getId());
     }
 
     /**
@@ -150,10 +209,17 @@ public class AntRoot
     public boolean isIncludedOrForeign(@NotNull TypeElement te)
     {
         AntDoc d = docCache.get(te);
-        if (d != null) {
-            return primaryTasks.contains(d) || primaryTypes.contains(d) || auxiliaryTypes.contains(d);
-        }
-        return true;
+        return d == null || includedIds.get(d.getId());
+    }
+
+    /**
+      Return the graph of references between types. The graph contains the references made by all documented
+      entities.
+    */
+
+    public @NotNull TypeReferenceGraph getReferenceGraph()
+    {
+        return referenceGraph;
     }
 
     /**
@@ -182,6 +248,11 @@ public class AntRoot
     */
 
     public @NotNull String getAntCategoryPrefix(@NotNull String category)
+    {
+        return createAntCategoryPrefix(category);
+    }
+
+    static @NotNull String createAntCategoryPrefix(@NotNull String category)
     {
         if (category.equals("none")) {
             return "Other ";
@@ -192,7 +263,7 @@ public class AntRoot
         return "";
     }
 
-    private @NotNull String capitalize(@NotNull String s)
+    private static @NotNull String capitalize(@NotNull String s)
     {
         if (s.isBlank()) {
             return "";
@@ -257,6 +328,15 @@ public class AntRoot
         return allPrimary.size();
     }
 
+    /**
+      Return the index of the primary entities by category.
+    */
+
+    public @NotNull CategoryIndex<AntDoc> getCategoryIndex()
+    {
+        return categoryIndex;
+    }
+
     public @NotNull Collection<AntDoc> getAllByCategory(@NotNull String category)
     {
         if ("all".equals(category)) {
@@ -267,12 +347,7 @@ public class AntRoot
             return getAllUncategorized();
         }
 
-        List<AntDoc> ds = primaryByCategory.get(category);
-        if (ds == null) {
-            ds = getByCategory(category, allPrimary);
-            primaryByCategory.put(category, ds);
-        }
-        return ds;
+        return categoryIndex.getAll(category);
     }
 
     public @NotNull Collection<AntDoc> getTasksByCategory(@NotNull String category)
@@ -285,12 +360,7 @@ public class AntRoot
             return getUncategorizedTasks();
         }
 
-        List<AntDoc> ds = primaryTasksByCategory.get(category);
-        if (ds == null) {
-            ds = getByCategory(category, primaryTasks);
-            primaryTasksByCategory.put(category, ds);
-        }
-        return ds;
+        return categoryIndex.getTasks(category);
     }
 
     public @NotNull Collection<AntDoc> getTypesByCategory(@NotNull String category)
@@ -312,22 +382,6 @@ public class AntRoot
             return getUncategorizedTypes();
         }
 
-        List<AntDoc> ds = primaryTypesByCategory.get(category);
-        if (ds == null) {
-            ds = getByCategory(category, primaryTypes);
-            primaryTypesByCategory.put(category, ds);
-        }
-        return ds;
-    }
-
-    private @NotNull List<AntDoc> getByCategory(@NotNull String category, @NotNull Set<AntDoc> antdocs)
-    {
-        List<AntDoc> filtered = new ArrayList<>();
-        for (AntDoc d : antdocs) {
-            if (category.equals(d.getAntCategory())) {
-                filtered.add(d);
-            }
-        }
-        return filtered;
+        return categoryIndex.getTypes(category);
     }
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+  An immutable description of an attribute supported by a task or type.
+  @param name The display name of the attribute.
+  @param type The name of the attribute type, or null if unknown.
+  @param typeLinked HTML that displays the name of the attribute type, with a link if possible.
+  @param types The names of all supported attribute types.
+  @param typesLinked HTML that displays the names of all supported attribute types, with links if possible.
+  @param description The HTML description of the attribute.
+  @param required The HTML content of the {@code ant.required} tag, or null if the tag is not present.
+  @param notRequired The HTML content of the {@code ant.optional} tag, or null if the tag is not present.
+  @param source The location of the method that defines the attribute, or null if it is not in a source file.
+*/
+
+public record AttributeModel(@NotNull String name,
+                             @Nullable String type,
+                             @Nullable String typeLinked,
+                             @Nullable String types,
+                             @Nullable String typesLinked,
+                             @NotNull String description,
+                             @Nullable String required,
+                             @Nullable String notRequired,
+                             @Nullable SourceLocation source)
+{
+}
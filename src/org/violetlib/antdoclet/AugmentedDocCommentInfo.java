@@ -27,6 +27,12 @@ public class AugmentedDocCommentInfo
         return new AugmentedDocCommentInfo(base, cp);
     }
 
+    /**
+      Statistics for the HTML memoized by all instances.
+    */
+
+    public static final @NotNull CacheStatistics HTML_STATISTICS = CacheStatistics.create("Comment HTML", true);
+
     private final @NotNull ElementContentProcessing cp;
 
     private @Nullable String _html_description;
@@ -65,10 +71,15 @@ public class AugmentedDocCommentInfo
 
     public @NotNull String getHtmlDescription()
     {
-        if (_html_description == null) {
-            _html_description = cp.toHTML(getDescription());
+        String html = _html_description;
+        if (html == null) {
+            html = cp.toHTML(getDescription());
+            _html_description = html;
+            recordMiss(html);
+        } else {
+            HTML_STATISTICS.recordHit();
         }
-        return _html_description;
+        return html;
     }
 
     /**
@@ -77,10 +88,15 @@ public class AugmentedDocCommentInfo
 
     public @NotNull String getHtmlShortDescription()
     {
-        if (_html_short_description == null) {
-            _html_short_description = cp.toHTML(getShortDescription());
+        String html = _html_short_description;
+        if (html == null) {
+            html = cp.toHTML(getShortDescription());
+            _html_short_description = html;
+            recordMiss(html);
+        } else {
+            HTML_STATISTICS.recordHit();
         }
-        return _html_short_description;
+        return html;
     }
 
     /**
@@ -89,9 +105,20 @@ public class AugmentedDocCommentInfo
 
     public @NotNull String getHtmlMediumDescription()
     {
-        if (_html_medium_description == null) {
-            _html_medium_description = cp.toHTML(getMediumDescription());
+        String html = _html_medium_description;
+        if (html == null) {
+            html = cp.toHTML(getMediumDescription());
+            _html_medium_description = html;
+            recordMiss(html);
+        } else {
+            HTML_STATISTICS.recordHit();
         }
-        return _html_medium_description;
+        return html;
+    }
+
+    private static void recordMiss(@NotNull String html)
+    {
+        HTML_STATISTICS.recordMiss();
+        HTML_STATISTICS.recordEntry(2L * html.length());
     }
 }
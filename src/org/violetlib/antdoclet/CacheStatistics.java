@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+  Counters that describe the use of a cache. The counters may be updated concurrently without locking.
+*/
+
+public class CacheStatistics
+{
+    /**
+      Create a set of counters.
+      @param name The name of the cache, for display.
+      @param measuresSize True if the cache reports the approximate size of its entries.
+    */
+
+    public static @NotNull CacheStatistics create(@NotNull String name, boolean measuresSize)
+    {
+        return new CacheStatistics(name, measuresSize);
+    }
+
+    private final @NotNull String name;
+    private final boolean measuresSize;
+    private final @NotNull LongAdder hits = new LongAdder();
+    private final @NotNull LongAdder misses = new LongAdder();
+    private final @NotNull LongAdder entries = new LongAdder();
+    private final @NotNull LongAdder bytes = new LongAdder();
+
+    private CacheStatistics(@NotNull String name, boolean measuresSize)
+    {
+        this.name = name;
+        this.measuresSize = measuresSize;
+    }
+
+    public @NotNull String getName()
+    {
+        return name;
+    }
+
+    public void recordHit()
+    {
+        hits.increment();
+    }
+
+    public void recordMiss()
+    {
+        misses.increment();
+    }
+
+    /**
+      Record the addition of an entry.
+      @param size The approximate size of the entry, in bytes. Ignored if the cache does not measure size.
+    */
+
+    public void recordEntry(long size)
+    {
+        entries.increment();
+        bytes.add(size);
+    }
+
+    /**
+      Record the removal of an entry.
+      @param size The approximate size of the entry, in bytes. Ignored if the cache does not measure size.
+    */
+
+    public void recordRemoval(long size)
+    {
+        entries.decrement();
+        bytes.add(-size);
+    }
+
+    public long getHitCount()
+    {
+        return hits.sum();
+    }
+
+    public long getMissCount()
+    {
+        return misses.sum();
+    }
+
+    public long getEntryCount()
+    {
+        return entries.sum();
+    }
+
+    /**
+      Return the approximate size of the entries, in bytes.
+      @return the size, or -1 if the cache does not measure size.
+    */
+
+    public long getSize()
+    {
+        return measuresSize ? bytes.sum() : -1;
+    }
+
+    /**
+      Return a table that displays the specified statistics.
+    */
+
+    public static @NotNull String formatTable(@NotNull List<CacheStatistics> stats)
+    {
+        String format = "%-24s %10s %10s %8s %10s %12s%n";
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(format, "Cache", "Hits", "Misses", "Hit %", "Entries", "Size (KB)"));
+        for (CacheStatistics s : stats) {
+            long hits = s.getHitCount();
+            long misses = s.getMissCount();
+            long lookups = hits + misses;
+            String ratio = lookups > 0 ? String.format("%.1f", 100.0 * hits / lookups) : "-";
+            long size = s.getSize();
+            String sizeText = size >= 0 ? String.valueOf((size + 1023) / 1024) : "-";
+            sb.append(String.format(format, s.getName(), hits, misses, ratio, s.getEntryCount(), sizeText));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+  An immutable index of entities by category and kind. The index is built in a single pass. Entities with no
+  category are not indexed.
+  <p>
+  The index is created from the analyzed entities and can be converted to an index of another representation of the
+  same entities, such as their models, without classifying them again.
+
+  @param <T> The representation of an entity.
+*/
+
+public class CategoryIndex<T>
+{
+    /**
+      Create an index.
+      @param entities The entities to index. The lists in the index preserve the iteration order of this collection.
+    */
+
+    public static @NotNull CategoryIndex<AntDoc> create(@NotNull Collection<AntDoc> entities)
+    {
+        Map<String,List<AntDoc>> all = new HashMap<>();
+        Map<String,List<AntDoc>> tasks = new HashMap<>();
+        Map<String,List<AntDoc>> types = new HashMap<>();
+        for (AntDoc d : entities) {
+            String category = d.getAntCategory();
+            if (category != null) {
+                all.computeIfAbsent(category, k -> new ArrayList<>()).add(d);
+                Map<String,List<AntDoc>> m = d.isTask() ? tasks : types;
+                m.computeIfAbsent(category, k -> new ArrayList<>()).add(d);
+            }
+        }
+        return new CategoryIndex<>(all, tasks, types);
+    }
+
+    private final @NotNull Map<String,List<T>> all;
+    private final @NotNull Map<String,List<T>> tasks;
+    private final @NotNull Map<String,List<T>> types;
+
+    private CategoryIndex(@NotNull Map<String,List<T>> all,
+                          @NotNull Map<String,List<T>> tasks,
+                          @NotNull Map<String,List<T>> types)
+    {
+        this.all = freeze(all);
+        this.tasks = freeze(tasks);
+        this.types = freeze(types);
+    }
+
+    private static <T> @NotNull Map<String,List<T>> freeze(@NotNull Map<String,List<T>> m)
+    {
+        Map<String,List<T>> result = new HashMap<>();
+        for (Map.Entry<String,List<T>> e : m.entrySet()) {
+            result.put(e.getKey(), List.copyOf(e.getValue()));
+        }
+        return Map.copyOf(result);
+    }
+
+    /**
+      Return an index of another representation of the indexed entities.
+      @param mapper The function that returns the representation of an entity.
+      @return an index whose lists contain the representations, in the same order.
+    */
+
+    public <R> @NotNull CategoryIndex<R> map(@NotNull Function<T,R> mapper)
+    {
+        return new CategoryIndex<>(map(all, mapper), map(tasks, mapper), map(types, mapper));
+    }
+
+    private static <T,R> @NotNull Map<String,List<R>> map(@NotNull Map<String,List<T>> m,
+                                                         @NotNull Function<T,R> mapper)
+    {
+        Map<String,List<R>> result = new HashMap<>();
+        for (Map.Entry<String,List<T>> e : m.entrySet()) {
+            List<R> rs = new ArrayList<>(e.getValue().size());
+            for (T t : e.getValue()) {
+                rs.add(mapper.apply(t));
+            }
+            result.put(e.getKey(), rs);
+        }
+        return result;
+    }
+
+    /**
+      Return the entities in the specified category.
+    */
+
+    public @NotNull List<T> getAll(@NotNull String category)
+    {
+        return all.getOrDefault(category, List.of());
+    }
+
+    /**
+      Return the tasks in the specified category.
+    */
+
+    public @NotNull List<T> getTasks(@NotNull String category)
+    {
+        return tasks.getOrDefault(category, List.of());
+    }
+
+    /**
+      Return the types in the specified category.
+    */
+
+    public @NotNull List<T> getTypes(@NotNull String category)
+    {
+        return types.getOrDefault(category, List.of());
+    }
+}
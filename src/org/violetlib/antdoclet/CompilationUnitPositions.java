@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+  The source positions of the classes and members declared in one compilation unit. The positions are found in a
+  single pass over the compilation unit, which does not descend into method bodies or field initializers.
+  Elements declared in those places are not included. The path to each declaration is also retained, so that the
+  declaration can be used without searching the compilation unit for it.
+  <p>
+  Each declaration whose position is known is assigned an identifier. The identifiers are consecutive integers,
+  starting with a base identifier specified by the creator, in the order the declarations appear in the source file.
+*/
+
+public class CompilationUnitPositions
+{
+    /**
+      Find the source positions of the declarations in a compilation unit.
+      @param cu The compilation unit.
+      @param docTrees The trees used to identify the declared elements.
+      @param firstId The identifier to assign to the first declaration.
+    */
+
+    public static @NotNull CompilationUnitPositions create(@NotNull CompilationUnitTree cu,
+                                                           @NotNull DocTrees docTrees,
+                                                           int firstId)
+    {
+        return new CompilationUnitPositions(cu, docTrees, firstId);
+    }
+
+    private final @NotNull CompilationUnitTree cu;
+    private final @NotNull LineMap lineMap;
+    private final @NotNull Map<Element,Long> positions = new HashMap<>();
+    private final @NotNull Map<Element,TreePath> paths = new HashMap<>();
+    private final @NotNull Map<Element,Integer> ids = new HashMap<>();
+    private final int firstId;
+    private @Nullable Charset charset;
+
+    private CompilationUnitPositions(@NotNull CompilationUnitTree cu, @NotNull DocTrees docTrees, int firstId)
+    {
+        this.cu = cu;
+        this.lineMap = cu.getLineMap();
+        this.firstId = firstId;
+        new Scanner(docTrees).scan(cu, null);
+    }
+
+    public @NotNull CompilationUnitTree getCompilationUnit()
+    {
+        return cu;
+    }
+
+    public @NotNull JavaFileObject getSourceFile()
+    {
+        return cu.getSourceFile();
+    }
+
+    /**
+      Return the path of the source file.
+      @return the path, or null if the source file is not in the default file system.
+    */
+
+    public @Nullable Path getSourcePath()
+    {
+        try {
+            return Path.of(cu.getSourceFile().toUri());
+        } catch (IllegalArgumentException | FileSystemNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+      Return the charset used by the compiler to decode the source file, which is determined by the {@code -encoding}
+      option. The charset is obtained from a reader opened by the file manager, so this method must be called on the
+      thread that uses the compiler. The charset can then be used to read the source file on any thread.
+      @return the charset, or the default charset if the file manager does not identify it.
+    */
+
+    public @NotNull Charset getCharset()
+    {
+        if (charset == null) {
+            charset = Charset.defaultCharset();
+            try (Reader r = cu.getSourceFile().openReader(true)) {
+                if (r instanceof InputStreamReader isr && isr.getEncoding() != null) {
+                    charset = Charset.forName(isr.getEncoding());
+                }
+            } catch (IOException | IllegalArgumentException ex) {
+            }
+        }
+        return charset;
+    }
+
+    /**
+      Return the number of elements whose positions are known.
+    */
+
+    public int getElementCount()
+    {
+        return positions.size();
+    }
+
+    /**
+      Indicate whether the position of the specified element is known.
+    */
+
+    public boolean contains(@NotNull Element e)
+    {
+        return positions.containsKey(e);
+    }
+
+    /**
+      Return the identifier assigned to the declaration of the specified element.
+      @return the identifier, or -1 if the position of the element is not known.
+    */
+
+    public int getId(@NotNull Element e)
+    {
+        Integer id = ids.get(e);
+        return id != null ? id : -1;
+    }
+
+    /**
+      Return the start position of the declaration of the specified element.
+      @return the character offset of the declaration in the source file, or -1 if the position is not known.
+    */
+
+    public long getStartPosition(@NotNull Element e)
+    {
+        Long pos = positions.get(e);
+        return pos != null ? pos : -1;
+    }
+
+    /**
+      Return the path to the declaration of the specified element.
+      @return the path, or null if the position of the element is not known.
+    */
+
+    public @Nullable TreePath getPath(@NotNull Element e)
+    {
+        return paths.get(e);
+    }
+
+    /**
+      Return the line number of the start of the declaration of the specified element.
+      @return the line number (starting with one), or zero if the position is not known.
+    */
+
+    public long getLineNumber(@NotNull Element e)
+    {
+        long pos = getStartPosition(e);
+        return pos >= 0 ? lineMap.getLineNumber(pos) : 0;
+    }
+
+    /**
+      Return the line number of a character offset in the source file.
+    */
+
+    public long getLineNumber(long position)
+    {
+        return lineMap.getLineNumber(position);
+    }
+
+    private class Scanner
+      extends TreePathScanner<Void,Void>
+    {
+        private final @NotNull DocTrees docTrees;
+        private final @NotNull SourcePositions sourcePositions;
+
+        public Scanner(@NotNull DocTrees docTrees)
+        {
+            this.docTrees = docTrees;
+            this.sourcePositions = docTrees.getSourcePositions();
+        }
+
+        @Override
+        public Void visitClass(ClassTree tree, Void unused)
+        {
+            record(tree);
+            return super.visitClass(tree, unused);
+        }
+
+        @Override
+        public Void visitMethod(MethodTree tree, Void unused)
+        {
+            record(tree);
+            return null;
+        }
+
+        @Override
+        public Void visitVariable(VariableTree tree, Void unused)
+        {
+            record(tree);
+            return null;
+        }
+
+        @Override
+        public Void visitBlock(BlockTree tree, Void unused)
+        {
+            // An initializer block declares no members
+            return null;
+        }
+
+        private void record(@NotNull Tree tree)
+        {
+            TreePath path = getCurrentPath();
+            Element e = docTrees.getElement(path);
+            if (e != null) {
+                positions.put(e, sourcePositions.getStartPosition(cu, tree));
+                paths.put(e, path);
+                ids.putIfAbsent(e, firstId + ids.size());
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.violetlib.antdoclet;
 
 import com.sun.source.doctree.*;
+import com.sun.source.util.SimpleDocTreeVisitor;
 import jdk.javadoc.doclet.Reporter;
 import org.jetbrains.annotations.NotNull;
 
@@ -8,7 +9,9 @@ import javax.lang.model.element.Element;
 import javax.tools.Diagnostic;
 import javax.tools.FileObject;
 import javax.tools.JavaFileObject;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.net.URI;
 import java.util.List;
@@ -24,43 +27,135 @@ public class ContentProcessor
                                                    @NotNull Writer w,
                                                    boolean isRaw,
                                                    @NotNull LinkSupport linkSupport,
+                                                   @NotNull InlineTagRegistry inlineTags,
+                                                   @NotNull SnippetTokenCache snippetTokenCache,
                                                    @NotNull Reporter reporter)
     {
-        return new ContentProcessor(e, w, isRaw, linkSupport, reporter);
+        return new ContentProcessor(e, w, isRaw, linkSupport, inlineTags, snippetTokenCache, reporter);
     }
 
     private final @NotNull Element e;
     private final @NotNull PrintWriter w;
+    private final @NotNull HtmlEscapingWriter escaper;
     private final boolean isRaw;
     private final @NotNull LinkSupport linkSupport;
+    private final @NotNull InlineTagRegistry inlineTags;
+    private final @NotNull SnippetTokenCache snippetTokenCache;
     private final @NotNull Reporter reporter;
+    private final @NotNull Visitor visitor = new Visitor();
 
     public ContentProcessor(@NotNull Element e,
                             @NotNull Writer w,
                             boolean isRaw,
                             @NotNull LinkSupport linkSupport,
+                            @NotNull InlineTagRegistry inlineTags,
+                            @NotNull SnippetTokenCache snippetTokenCache,
                             @NotNull Reporter reporter)
     {
         this.e = e;
         this.w = w instanceof PrintWriter pw ? pw : new PrintWriter(w);
+        this.escaper = HtmlEscapingWriter.create(this.w);
         this.isRaw = isRaw;
         this.linkSupport = linkSupport;
+        this.inlineTags = inlineTags;
+        this.snippetTokenCache = snippetTokenCache;
         this.reporter = reporter;
     }
 
+    /**
+      Return the element whose documentation is being processed.
+    */
+
+    public @NotNull Element getElement()
+    {
+        return e;
+    }
+
+    /**
+      Indicate whether this processor recreates the source form of the content rather than HTML.
+    */
+
+    public boolean isRaw()
+    {
+        return isRaw;
+    }
+
+    public @NotNull LinkSupport getLinkSupport()
+    {
+        return linkSupport;
+    }
+
+    public @NotNull SnippetTokenCache getSnippetTokenCache()
+    {
+        return snippetTokenCache;
+    }
+
     public void write(@NotNull List<? extends DocTree> content)
     {
         for (DocTree tag : content) {
-            DocTree.Kind kind = tag.getKind();
-            if (kind == DocTree.Kind.TEXT) {
-                TextTree tt = (TextTree) tag;
-                String text = tt.getBody();
-                debug("Text: " + text);
-                w.write(text);
-            } else if (kind == DocTree.Kind.CODE) {
-                LiteralTree lt = (LiteralTree) tag;
-                TextTree body = lt.getBody();
-                String text = body.getBody();
+            tag.accept(visitor, null);
+        }
+    }
+
+    /**
+      Write text to the output without any processing. For use by inline tag handlers.
+    */
+
+    public void writeHTML(@NotNull String html)
+    {
+        w.write(html);
+    }
+
+    /**
+      Write text to the output, escaping HTML metacharacters.
+    */
+
+    public void writeEscaped(@NotNull String text)
+    {
+        try {
+            escaper.write(text);
+        } catch (IOException ex) {
+            // The underlying writer is a PrintWriter, which does not throw
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+      Write a portion of a string to the output, escaping HTML metacharacters.
+    */
+
+    public void writeEscaped(@NotNull String text, int start, int end)
+    {
+        try {
+            escaper.write(text, start, end - start);
+        } catch (IOException ex) {
+            // The underlying writer is a PrintWriter, which does not throw
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+      Convert each kind of doc tree node to output. Every node is dispatched through this one visitor.
+    */
+
+    private class Visitor
+      extends SimpleDocTreeVisitor<Void,Void>
+    {
+        @Override
+        public Void visitText(@NotNull TextTree tt, Void unused)
+        {
+            String text = tt.getBody();
+            debug("Text: " + text);
+            w.write(text);
+            return null;
+        }
+
+        @Override
+        public Void visitLiteral(@NotNull LiteralTree lt, Void unused)
+        {
+            TextTree body = lt.getBody();
+            String text = body.getBody();
+            if (lt.getKind() == DocTree.Kind.CODE) {
                 debug("Code: " + text);
                 if (isRaw) {
                     w.write("{@code ");
@@ -68,167 +163,143 @@ public class ContentProcessor
                     w.write("}");
                 } else {
                     w.write("<code>");
-                    w.write(text);
+                    writeEscaped(text);
                     w.write("</code>");
                 }
-            } else if (tag instanceof LiteralTree) {
-                LiteralTree lt = (LiteralTree) tag;
-                TextTree body = lt.getBody();
-                String text = body.getBody();
+            } else {
                 debug("Literal text: " + text);
                 if (isRaw) {
                     w.write("{@literal ");
                     w.write(text);
                     w.write("}");
                 } else {
-                    // TBD: need to escape HTML characters like <
-                    w.write(text);
-                }
-            } else if (kind == DocTree.Kind.SNIPPET) {
-                SnippetTree t = (SnippetTree) tag;
-                List<? extends DocTree> ats = t.getAttributes();
-                TextTree body = t.getBody();
-                if (body != null) {
-                    String text = body.getBody();
-                    if (!text.isEmpty()) {
-                        text = processSnippetBody(text);
-                        debug("Snippet: " + text);
-                        w.write("<pre class=\"snippet\">" + text + "</pre>");
-                    }
-                }
-            } else if (kind == DocTree.Kind.ENTITY) {
-                EntityTree t = (EntityTree) tag;
-                String name = t.getName().toString();
-                debug("Character: " + name);
-                w.write("&");
-                w.write(name);
-                w.write(";");
-            } else if (kind == DocTree.Kind.START_ELEMENT) {
-                StartElementTree t = (StartElementTree) tag;
-                String name = t.getName().toString();
-                debug("Start: " + name);
-                w.write("<");
-                w.write(name);
-                write(t.getAttributes());
-                if (t.isSelfClosing()) {
-                    w.write("/");
-                }
-                w.write(">");
-            } else if (kind == DocTree.Kind.ATTRIBUTE) {
-                AttributeTree t = (AttributeTree) tag;
-                String name = t.getName().toString();
-                AttributeTree.ValueKind valueKind = t.getValueKind();
-                debug("Attribute: " + name);
-                writeAttribute(name, valueKind, t.getValue());
-            } else if (kind == DocTree.Kind.END_ELEMENT) {
-                EndElementTree t = (EndElementTree) tag;
-                String name = t.getName().toString();
-                debug("End: " + name);
-                w.write("</");
-                w.write(name);
-                w.write(">");
-            } else if (kind == DocTree.Kind.LINK) {
-                LinkTree t = (LinkTree) tag;
-                writeLink(t, false);
-            } else if (kind == DocTree.Kind.LINK_PLAIN) {
-                LinkTree t = (LinkTree) tag;
-                writeLink(t, true);
-            } else if (kind == DocTree.Kind.UNKNOWN_INLINE_TAG) {
-                UnknownInlineTagTree t = (UnknownInlineTagTree) tag;
-                String tagName = t.getTagName();
-                debug("Inline tag: " + tagName);
-                if (isRaw) {
-                    w.write("@");
-                    w.write(tagName);
-                    w.write(" ");
-                    write(t.getContent());
-                } else {
-                    // TBD
-                    write(t.getContent());
-                }
-            } else if (kind == DocTree.Kind.ESCAPE) {
-                EscapeTree t = (EscapeTree) tag;
-                String body = t.getBody();
-                debug("Escape: " + body);
-                if (isRaw) {
-                    w.write("@");
-                    w.write(body);
-                } else {
-                    w.write(body);
+                    writeEscaped(text);
                 }
-            } else if (kind == DocTree.Kind.ERRONEOUS) {
-                ErroneousTree t = (ErroneousTree) tag;
-                Diagnostic<JavaFileObject> d = t.getDiagnostic();
-                FileObject source = d.getSource();
-                int start = (int) d.getStartPosition();
-                int pos = (int) d.getPosition();
-                int end = (int) d.getEndPosition();
-                reporter.print(d.getKind(), source, start, pos, end, d.getMessage(Locale.getDefault()));
-            } else if (kind == DocTree.Kind.INHERIT_DOC) {
-                // ignore
-            } else {
-                error("Unknown or unsupported doc tree element: " + kind);
             }
+            return null;
         }
-    }
 
-    private @NotNull String processSnippetBody(@NotNull String body)
-    {
-        String original = body;
-        body = original.replace("&", "&amp;").replace("<", "&lt;");
-
-        // This should not happen. Tabs should have been converted to spaces.
-        if (body.contains("\t")) {
-            error("Tabs in @snippet body are not supported");
+        @Override
+        public Void visitSnippet(@NotNull SnippetTree t, Void unused)
+        {
+            SnippetFormatter.format(t, ContentProcessor.this);
+            return null;
         }
 
-        // Remove excess indentation. The excess indentation is determined by the indentation at the end of the
-        // body.
-
-        int indentationCount = 0;
-        while (body.endsWith(" ")) {
-            body = body.substring(0, body.length() - 1);
-            indentationCount++;
+        @Override
+        public Void visitEntity(@NotNull EntityTree t, Void unused)
+        {
+            String name = t.getName().toString();
+            debug("Character: " + name);
+            w.write("&");
+            w.write(name);
+            w.write(";");
+            return null;
         }
 
-        if (false) { // debug
-            if (indentationCount > 0) {
-                System.out.println("Indentation count: " + indentationCount);
-                System.out.println(original);
+        @Override
+        public Void visitStartElement(@NotNull StartElementTree t, Void unused)
+        {
+            String name = t.getName().toString();
+            debug("Start: " + name);
+            w.write("<");
+            w.write(name);
+            write(t.getAttributes());
+            if (t.isSelfClosing()) {
+                w.write("/");
             }
+            w.write(">");
+            return null;
         }
 
-        if (body.endsWith("\n")) {
-            body = body.substring(0, body.length() - 1);
+        @Override
+        public Void visitAttribute(@NotNull AttributeTree t, Void unused)
+        {
+            String name = t.getName().toString();
+            AttributeTree.ValueKind valueKind = t.getValueKind();
+            debug("Attribute: " + name);
+            writeAttribute(name, valueKind, t.getValue());
+            return null;
         }
 
-        StringBuilder sb = new StringBuilder();
+        @Override
+        public Void visitEndElement(@NotNull EndElementTree t, Void unused)
+        {
+            String name = t.getName().toString();
+            debug("End: " + name);
+            w.write("</");
+            w.write(name);
+            w.write(">");
+            return null;
+        }
 
-        String[] lines = body.lines().toArray(String[]::new);
-        int count = lines.length;
-        for (int i = 0; i < count; i++) {
-            String line = removeIndentation(lines[i], indentationCount);
-            sb.append(line);
-            if (i != count-1) {
-                sb.append("\n");
-            }
+        @Override
+        public Void visitLink(@NotNull LinkTree t, Void unused)
+        {
+            writeLink(t, t.getKind() == DocTree.Kind.LINK_PLAIN);
+            return null;
         }
 
-        return sb.toString();
-    }
+        @Override
+        public Void visitUnknownInlineTag(@NotNull UnknownInlineTagTree t, Void unused)
+        {
+            String tagName = t.getTagName();
+            debug("Inline tag: " + tagName);
+            if (isRaw) {
+                w.write("@");
+                w.write(tagName);
+                w.write(" ");
+                write(t.getContent());
+            } else {
+                InlineTagHandler h = inlineTags.get(tagName);
+                if (h != null) {
+                    h.write(t, ContentProcessor.this);
+                } else {
+                    write(t.getContent());
+                }
+            }
+            return null;
+        }
 
-    private @NotNull String removeIndentation(@NotNull String s, int count)
-    {
-        int i = 0;
-        int len = s.length();
-        while (i < count && i < len) {
-            if (s.charAt(i) == ' ') {
-                i++;
+        @Override
+        public Void visitEscape(@NotNull EscapeTree t, Void unused)
+        {
+            String body = t.getBody();
+            debug("Escape: " + body);
+            if (isRaw) {
+                w.write("@");
+                w.write(body);
             } else {
-                break;
+                w.write(body);
             }
+            return null;
+        }
+
+        @Override
+        public Void visitErroneous(@NotNull ErroneousTree t, Void unused)
+        {
+            Diagnostic<JavaFileObject> d = t.getDiagnostic();
+            FileObject source = d.getSource();
+            int start = (int) d.getStartPosition();
+            int pos = (int) d.getPosition();
+            int end = (int) d.getEndPosition();
+            reporter.print(d.getKind(), source, start, pos, end, d.getMessage(Locale.getDefault()));
+            return null;
+        }
+
+        @Override
+        public Void visitInheritDoc(@NotNull InheritDocTree t, Void unused)
+        {
+            // ignore
+            return null;
+        }
+
+        @Override
+        protected Void defaultAction(@NotNull DocTree t, Void unused)
+        {
+            error("Unknown or unsupported doc tree element: " + t.getKind());
+            return null;
         }
-        return s.substring(i);
     }
 
     protected void writeAttribute(@NotNull String name,
@@ -310,7 +381,11 @@ public class ContentProcessor
         w.flush();
     }
 
-    private void error(@NotNull String message)
+    /**
+      Report an error, identifying the class whose documentation is being processed.
+    */
+
+    public void error(@NotNull String message)
     {
         String context = Util.getTopLevelSimpleName(e);
         if (context != null) {
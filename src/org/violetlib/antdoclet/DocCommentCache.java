@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.lang.model.element.Element;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+  Cache the information obtained from documentation comments, including the rendered HTML.
+  <p>
+  The cache is either unbounded or limited to a maximum number of entries. When the cache is bounded, the least
+  recently used entry is evicted when the limit is exceeded. An evicted entry is rebuilt if it is needed again.
+  <p>
+  To count rebuilt entries, the cache records which entries have been evicted, using the identifiers assigned by a
+  {@link SourcePositionIndex}, so that evicted elements are not retained. An element that is not indexed is not
+  counted when it is rebuilt.
+*/
+
+public class DocCommentCache
+{
+    /**
+      Create a cache.
+      @param maximumSize The maximum number of entries, or zero for an unbounded cache.
+      @param index The index used to identify evicted entries.
+    */
+
+    public static @NotNull DocCommentCache create(int maximumSize, @NotNull SourcePositionIndex index)
+    {
+        return new DocCommentCache(maximumSize, index);
+    }
+
+    private final int maximumSize;
+    private final @NotNull SourcePositionIndex index;
+    private final @NotNull Map<Element,AugmentedDocCommentInfo> cache;
+    private final @NotNull BitSet evicted = new BitSet();
+    private int evictionCount;
+    private int rebuildCount;
+    private final @NotNull CacheStatistics statistics = CacheStatistics.create("Documentation comment", false);
+
+    private DocCommentCache(int maximumSize, @NotNull SourcePositionIndex index)
+    {
+        this.maximumSize = Math.max(0, maximumSize);
+        this.index = index;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Element,AugmentedDocCommentInfo> eldest)
+            {
+                if (DocCommentCache.this.maximumSize > 0 && size() > DocCommentCache.this.maximumSize) {
+                    int id = index.getId(eldest.getKey());
+                    if (id >= 0) {
+                        evicted.set(id);
+                    }
+                    evictionCount++;
+                    statistics.recordRemoval(0);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+      Indicate whether the number of entries is limited.
+    */
+
+    public boolean isBounded()
+    {
+        return maximumSize > 0;
+    }
+
+    public @Nullable AugmentedDocCommentInfo get(@NotNull Element e)
+    {
+        AugmentedDocCommentInfo info = cache.get(e);
+        if (info != null) {
+            statistics.recordHit();
+        } else {
+            statistics.recordMiss();
+        }
+        return info;
+    }
+
+    /**
+      Indicate whether the cache contains an entry for the specified element. The cache statistics are not updated.
+    */
+
+    public boolean contains(@NotNull Element e)
+    {
+        return cache.containsKey(e);
+    }
+
+    public void put(@NotNull Element e, @NotNull AugmentedDocCommentInfo info)
+    {
+        if (!evicted.isEmpty()) {
+            int id = index.getId(e);
+            if (id >= 0 && evicted.get(id)) {
+                evicted.clear(id);
+                rebuildCount++;
+            }
+        }
+        if (cache.put(e, info) == null) {
+            statistics.recordEntry(0);
+        }
+    }
+
+    public @NotNull CacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    /**
+      Return the number of entries that have been evicted.
+    */
+
+    public int getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    /**
+      Return the number of evicted entries that have been rebuilt.
+    */
+
+    public int getRebuildCount()
+    {
+        return rebuildCount;
+    }
+}
@@ -8,11 +8,7 @@
 
 package org.violetlib.antdoclet;
 
-import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.tree.LineMap;
-import com.sun.source.util.DocSourcePositions;
 import com.sun.source.util.DocTrees;
-import com.sun.source.util.TreePath;
 import jdk.javadoc.doclet.Doclet;
 import jdk.javadoc.doclet.DocletEnvironment;
 import jdk.javadoc.doclet.Reporter;
@@ -43,6 +39,7 @@ public class DocUtils
     private final @NotNull Elements elementUtils;
     private final @NotNull Types typeUtils;
     private final @NotNull Reporter reporter;
+    private final @NotNull SourcePositionIndex sourcePositions;
 
     private DocUtils(@NotNull DocletEnvironment env, @NotNull Reporter reporter)
     {
@@ -51,6 +48,7 @@ public class DocUtils
         this.elementUtils = env.getElementUtils();
         this.typeUtils = env.getTypeUtils();
         this.reporter = reporter;
+        this.sourcePositions = SourcePositionIndex.create(docTrees);
     }
 
     public @NotNull DocletEnvironment getEnvironment()
@@ -166,16 +164,13 @@ public class DocUtils
         return typeUtils.isSubtype(t1, t2);
     }
 
+    public @NotNull SourcePositionIndex getSourcePositionIndex()
+    {
+        return sourcePositions;
+    }
+
     public long getLineNumber(@NotNull Element e)
     {
-        TreePath path = docTrees.getPath(e);
-        if (path == null) {
-            return 0;
-        }
-        CompilationUnitTree cu = path.getCompilationUnit();
-        LineMap lineMap = cu.getLineMap();
-        DocSourcePositions spos = docTrees.getSourcePositions();
-        long pos = spos.getStartPosition(cu, path.getLeaf());
-        return lineMap.getLineNumber(pos);
+        return sourcePositions.getLineNumber(e);
     }
 }
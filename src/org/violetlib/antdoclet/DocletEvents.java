@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+  Java Flight Recorder events emitted by the doclet. The events are recorded only when a recording is active that
+  enables them. Otherwise, their cost is negligible.
+*/
+
+public final class DocletEvents
+{
+    private DocletEvents()
+    {
+    }
+
+    @Name("org.violetlib.antdoclet.Phase")
+    @Label("Doclet Phase")
+    @Category("AntDoclet")
+    @Description("A phase of the doclet run: classification, prefetch, extraction, or rendering")
+    public static final class PhaseEvent
+      extends Event
+    {
+        @Label("Phase")
+        public String phase;
+
+        @Label("Entities")
+        public int entityCount;
+    }
+
+    @Name("org.violetlib.antdoclet.TypeAnalysis")
+    @Label("Type Analysis")
+    @Category("AntDoclet")
+    @Description("Analysis of the attributes and nested elements of a class")
+    public static final class TypeAnalysisEvent
+      extends Event
+    {
+        @Label("Type")
+        public String typeName;
+
+        @Label("Attributes")
+        public int attributeCount;
+
+        @Label("Nested Elements")
+        public int nestedElementCount;
+    }
+
+    @Name("org.violetlib.antdoclet.DocCommentAnalysis")
+    @Label("Documentation Comment Analysis")
+    @Category("AntDoclet")
+    @Description("Analysis of the documentation comment of an element")
+    public static final class DocCommentAnalysisEvent
+      extends Event
+    {
+        @Label("Element")
+        public String elementName;
+
+        @Label("Comment Length")
+        @Description("The number of characters in the documentation comment")
+        public long commentLength;
+    }
+
+    @Name("org.violetlib.antdoclet.LinkResolution")
+    @Label("Link Resolution")
+    @Category("AntDoclet")
+    @Description("Resolution of a type name or type to a link target")
+    public static final class LinkResolutionEvent
+      extends Event
+    {
+        @Label("Name")
+        public String name;
+
+        @Label("Target")
+        public String target;
+    }
+
+    @Name("org.violetlib.antdoclet.TemplateMerge")
+    @Label("Template Merge")
+    @Category("AntDoclet")
+    @Description("Evaluation of a template to produce a page")
+    public static final class TemplateMergeEvent
+      extends Event
+    {
+        @Label("Template")
+        public String template;
+
+        @Label("Output")
+        public String output;
+
+        @Label("Output Length")
+        @Description("The number of characters written")
+        public long outputLength;
+    }
+}
@@ -17,19 +17,29 @@ public class ElementContentProcessing
 {
     public static @NotNull ElementContentProcessing create(@NotNull Element e,
                                                            @NotNull LinkSupport linkSupport,
+                                                           @NotNull InlineTagRegistry inlineTags,
+                                                           @NotNull SnippetTokenCache snippetTokenCache,
                                                            @NotNull Reporter reporter)
     {
-        return new ElementContentProcessing(e, linkSupport, reporter);
+        return new ElementContentProcessing(e, linkSupport, inlineTags, snippetTokenCache, reporter);
     }
 
     private final @NotNull Element e;
     private final @NotNull LinkSupport linkSupport;
+    private final @NotNull InlineTagRegistry inlineTags;
+    private final @NotNull SnippetTokenCache snippetTokenCache;
     private final @NotNull Reporter reporter;
 
-    private ElementContentProcessing(@NotNull Element e, @NotNull LinkSupport linkSupport, @NotNull Reporter reporter)
+    private ElementContentProcessing(@NotNull Element e,
+                                     @NotNull LinkSupport linkSupport,
+                                     @NotNull InlineTagRegistry inlineTags,
+                                     @NotNull SnippetTokenCache snippetTokenCache,
+                                     @NotNull Reporter reporter)
     {
         this.e = e;
         this.linkSupport = linkSupport;
+        this.inlineTags = inlineTags;
+        this.snippetTokenCache = snippetTokenCache;
         this.reporter = reporter;
     }
 
@@ -73,6 +83,6 @@ public class ElementContentProcessing
 
     private @NotNull ContentProcessor create(@NotNull Writer w, boolean isRaw)
     {
-        return ContentProcessor.create(e, w, isRaw, linkSupport, reporter);
+        return ContentProcessor.create(e, w, isRaw, linkSupport, inlineTags, snippetTokenCache, reporter);
     }
 }
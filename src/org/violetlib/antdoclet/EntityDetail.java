@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+  The detailed information about a documented task or type that is needed only by its own documentation page.
+  All HTML is rendered and all links are resolved.
+
+  @param description The HTML description.
+  @param nestedTaskDescription The HTML description of nested tasks, or null if none.
+  @param textDescription The HTML description of embedded text, or null if none.
+  @param attributes The attributes, in source order.
+  @param properties The global properties, in source order.
+  @param references The referenced elements, in source order.
+  @param namedElements The named nested elements, in source order.
+  @param nestedElementTypes The documented unnamed nested element types, in source order.
+  @param nestedClassNames The qualified names of the documented nested classes.
+*/
+
+public record EntityDetail(@NotNull String description,
+                           @Nullable String nestedTaskDescription,
+                           @Nullable String textDescription,
+                           @NotNull List<AttributeModel> attributes,
+                           @NotNull List<PropertyModel> properties,
+                           @NotNull List<ReferenceModel> references,
+                           @NotNull List<NestedElementModel> namedElements,
+                           @NotNull List<NestedElementModel> nestedElementTypes,
+                           @NotNull List<String> nestedClassNames)
+{
+    public EntityDetail
+    {
+        attributes = List.copyOf(attributes);
+        properties = List.copyOf(properties);
+        references = List.copyOf(references);
+        namedElements = List.copyOf(namedElements);
+        nestedElementTypes = List.copyOf(nestedElementTypes);
+        nestedClassNames = List.copyOf(nestedClassNames);
+    }
+}
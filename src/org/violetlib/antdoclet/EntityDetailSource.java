@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+  Provides the detailed information about entity models. The detailed information may be created after the model.
+*/
+
+public interface EntityDetailSource
+{
+    /**
+      Return the detailed information about an entity, waiting for it to be created if necessary.
+      @param m The entity model.
+      @return the detailed information.
+      @throws IllegalStateException if the detailed information cannot be created.
+    */
+
+    @NotNull EntityDetail getDetail(@NotNull EntityModel m);
+}
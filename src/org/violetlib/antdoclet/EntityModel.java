@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+  An immutable description of a documented task or type. All HTML is rendered and all links are resolved when the
+  model is created, so the model does not depend on the compiler.
+  <p>
+  The model directly contains the information used for navigation and links. The information needed only by the
+  documentation page of the entity is obtained from a detail source, which may create it after the model is
+  created.
+  <p>
+  Most methods used by templates have the same names and meanings as the corresponding methods of {@link AntDoc}.
+  The methods of {@link AntDoc} that return compiler objects or that consult the compiler, such as
+  {@code getTypeElement} and {@code isSubtypeOf}, have no counterpart. Attributes, properties, references, and
+  nested elements are represented by models, rather than by the classes defined by {@link AntDoc}.
+
+  @param antName The name of the entity from Ant's perspective.
+  @param className The simple name of the defining class.
+  @param fullClassName The qualified name of the defining class.
+  @param isTask True if the entity is a task.
+  @param isTaskContainer True if the entity is a task container.
+  @param isIgnored True if the entity is marked to be ignored.
+  @param isIncluded True if the entity has a documentation page.
+  @param isTagged True if the class has an ant tag in its documentation comment.
+  @param supportsText True if the entity accepts text in the element body.
+  @param antCategory The category of the entity, or null if none.
+  @param antCategoryPrefix The category prefix for use as a title in a menu.
+  @param shortDescription The HTML short description, or null if none.
+  @param index The index used to resolve references to other entities.
+  @param detailSource The source of the detailed information.
+*/
+
+public record EntityModel(@NotNull String antName,
+                          @NotNull String className,
+                          @NotNull String fullClassName,
+                          boolean isTask,
+                          boolean isTaskContainer,
+                          boolean isIgnored,
+                          boolean isIncluded,
+                          boolean isTagged,
+                          boolean supportsText,
+                          @Nullable String antCategory,
+                          @NotNull String antCategoryPrefix,
+                          @Nullable String shortDescription,
+                          @NotNull ModelIndex index,
+                          @NotNull EntityDetailSource detailSource)
+{
+    /**
+      Return the detailed information about this entity, waiting for it to be created if necessary.
+    */
+
+    public @NotNull EntityDetail detail()
+    {
+        return detailSource.getDetail(this);
+    }
+
+    // Entity models are identified by class. The index refers back to this model.
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof EntityModel m && m.fullClassName.equals(fullClassName);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return fullClassName.hashCode();
+    }
+
+    @Override
+    public @NotNull String toString()
+    {
+        return "EntityModel " + fullClassName;
+    }
+
+    // For template use
+    public @NotNull String getAntName()
+    {
+        return antName;
+    }
+
+    // For template use
+    public @NotNull String getClassName()
+    {
+        return className;
+    }
+
+    // For template use
+    public @NotNull String getFullClassName()
+    {
+        return fullClassName;
+    }
+
+    // For template use
+    public @NotNull String getAntKind()
+    {
+        return isTask ? "Task" : "Type";
+    }
+
+    // For template use
+    public boolean isType()
+    {
+        return !isTask;
+    }
+
+    // For template use
+    public @Nullable String getAntCategory()
+    {
+        return antCategory;
+    }
+
+    // For template use
+    public @NotNull String getAntCategoryPrefix()
+    {
+        return antCategoryPrefix;
+    }
+
+    // For template use
+    public @NotNull String getDescription()
+    {
+        return detail().description();
+    }
+
+    // For template use
+    public @Nullable String getShortDescription()
+    {
+        return shortDescription;
+    }
+
+    // For template use
+    public @Nullable String getNestedTaskDescription()
+    {
+        return detail().nestedTaskDescription();
+    }
+
+    // For template use
+    public @Nullable String getTextDescription()
+    {
+        return detail().textDescription();
+    }
+
+    // For template use
+    public @NotNull List<EntityModel> getNestedClasses()
+    {
+        List<EntityModel> result = new ArrayList<>();
+        for (String name : detail().nestedClassNames()) {
+            EntityModel m = index.get(name);
+            if (m != null) {
+                result.add(m);
+            }
+        }
+        return result;
+    }
+
+    // For template use
+    public @NotNull List<AttributeModel> getAttributes()
+    {
+        return detail().attributes();
+    }
+
+    // For template use
+    public @NotNull String getAttributeName(@NotNull AttributeModel a)
+    {
+        return a.name();
+    }
+
+    // For template use
+    public @Nullable String getAttributeType(@NotNull AttributeModel a)
+    {
+        return a.type();
+    }
+
+    // For template use
+    public @Nullable String getAttributeTypeLinked(@NotNull AttributeModel a)
+    {
+        return a.typeLinked();
+    }
+
+    // For template use
+    public @Nullable String getAttributeTypes(@NotNull AttributeModel a)
+    {
+        return a.types();
+    }
+
+    // For template use
+    public @Nullable String getAttributeTypesLinked(@NotNull AttributeModel a)
+    {
+        return a.typesLinked();
+    }
+
+    // For template use
+    public @NotNull String getAttributeDescription(@NotNull AttributeModel a)
+    {
+        return a.description();
+    }
+
+    // For template use
+    public @Nullable String getAttributeRequired(@NotNull AttributeModel a)
+    {
+        return a.required();
+    }
+
+    // For template use
+    public @Nullable String getAttributeNotRequired(@NotNull AttributeModel a)
+    {
+        return a.notRequired();
+    }
+
+    // For template use
+    public @NotNull List<PropertyModel> getProperties()
+    {
+        return detail().properties();
+    }
+
+    // For template use
+    public @NotNull String getPropertyName(@NotNull PropertyModel p)
+    {
+        return p.name();
+    }
+
+    // For template use
+    public @NotNull String getPropertyDescription(@NotNull PropertyModel p)
+    {
+        return p.description();
+    }
+
+    // For template use
+    public @NotNull String getPropertyType(@NotNull PropertyModel p)
+    {
+        return p.type();
+    }
+
+    // For template use
+    public @NotNull String getPropertyTypeLinked(@NotNull PropertyModel p)
+    {
+        return p.typeLinked();
+    }
+
+    // For template use
+    public @NotNull List<ReferenceModel> getReferences()
+    {
+        return detail().references();
+    }
+
+    // For template use
+    public @NotNull String getReferenceName(@NotNull ReferenceModel r)
+    {
+        return r.name();
+    }
+
+    // For template use
+    public @NotNull String getReferenceDescription(@NotNull ReferenceModel r)
+    {
+        return r.description();
+    }
+
+    // For template use
+    public @NotNull String getReferenceType(@NotNull ReferenceModel r)
+    {
+        return r.type();
+    }
+
+    // For template use
+    public @NotNull String getReferenceTypeLinked(@NotNull ReferenceModel r)
+    {
+        return r.typeLinked();
+    }
+
+    // For template use
+    public @NotNull List<NestedElementModel> getNamedElements()
+    {
+        return detail().namedElements();
+    }
+
+    // For template use
+    public @NotNull List<NestedElementModel> getNestedElementTypes()
+    {
+        return detail().nestedElementTypes();
+    }
+
+    // For template use
+    public @NotNull String getNamedElementName(@NotNull NestedElementModel e)
+    {
+        String name = e.name();
+        if (name != null) {
+            return name;
+        }
+        throw new IllegalArgumentException("Not a named element");
+    }
+
+    // For template use
+    public @Nullable String getNamedNestedElementDescription(@NotNull NestedElementModel e)
+    {
+        return e.description();
+    }
+
+    // For template use
+    public @Nullable String getNestedElementTypeDescription(@NotNull NestedElementModel e)
+    {
+        return e.description();
+    }
+
+    // For template use
+    public @NotNull String getNestedElementTypeLinked(@NotNull NestedElementModel e)
+    {
+        return e.typeLinked();
+    }
+
+    // For template use
+    public @NotNull String getNestedElementTypesLinked(@NotNull NestedElementModel e)
+    {
+        return e.typesLinked();
+    }
+
+    /**
+      Return the model for the type of a nested element.
+      @return the model, or null if the type is not a documented entity.
+    */
+
+    // For template use
+    public @Nullable EntityModel getNestedElementTypeDoc(@NotNull NestedElementModel e)
+    {
+        return index.get(e.typeClassName());
+    }
+
+    /**
+      Return the model for the type of a named nested element.
+      @return the model, or null if the type is not a documented entity.
+    */
+
+    // For template use
+    public @Nullable EntityModel getNamedElementDoc(@NotNull NestedElementModel e)
+    {
+        return index.get(e.typeClassName());
+    }
+}
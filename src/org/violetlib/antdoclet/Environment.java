@@ -22,8 +22,13 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.TypeMirror;
 import javax.tools.Diagnostic;
+import java.text.Collator;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -32,28 +37,43 @@ import java.util.Map;
 
 public class Environment
 {
-    public static @NotNull Environment create(@NotNull DocletEnvironment env, @NotNull Reporter reporter)
+    public static @NotNull Environment create(@NotNull DocletEnvironment env,
+                                              @NotNull Reporter reporter,
+                                              @NotNull InlineTagRegistry inlineTags,
+                                              @Nullable Locale collationLocale,
+                                              int docCommentCacheSize)
     {
-        return new Environment(env, reporter);
+        return new Environment(env, reporter, inlineTags, collationLocale, docCommentCacheSize);
     }
 
     private final @NotNull DocletEnvironment env;
     private final @NotNull DocUtils docUtils;
-    private final @NotNull Reporter reporter;
+    private final @NotNull SuppressibleReporter reporter;
     private final @NotNull LinkSupport linkSupport;
+    private final @NotNull InlineTagRegistry inlineTags;
+    private final @Nullable Collator collator;
     private final @NotNull AnalysisCache analysisCache;
     private final @NotNull AntDocCache antDocCache;
     private final @NotNull AntRoot root;
-    private final @NotNull Map<Element,AugmentedDocCommentInfo> docCommentCache = new HashMap<>();
+    private final @NotNull DocCommentCache docCommentCache;
+    private final @NotNull SnippetTokenCache snippetTokenCache;
 
-    private Environment(@NotNull DocletEnvironment env, @NotNull Reporter reporter)
+    private Environment(@NotNull DocletEnvironment env,
+                        @NotNull Reporter reporter,
+                        @NotNull InlineTagRegistry inlineTags,
+                        @Nullable Locale collationLocale,
+                        int docCommentCacheSize)
     {
         this.env = env;
-        this.reporter = reporter;
+        this.reporter = SuppressibleReporter.create(reporter);
+        this.inlineTags = inlineTags;
+        this.collator = collationLocale != null ? Collator.getInstance(collationLocale) : null;
+        this.docUtils = DocUtils.create(env, this.reporter);
+        this.docCommentCache = DocCommentCache.create(docCommentCacheSize, docUtils.getSourcePositionIndex());
+        this.snippetTokenCache = SnippetTokenCache.create(SnippetTokenCache.DEFAULT_MAXIMUM_SIZE);
 
         this.antDocCache = AntDocCache.create(this);
         this.linkSupport = LinkSupport.create(this);
-        this.docUtils = DocUtils.create(env, reporter);
         this.analysisCache = AnalysisCache.create(docUtils);
         this.root = ProjectBuilder.build(antDocCache, env.getIncludedElements());
     }
@@ -63,11 +83,50 @@ public class Environment
         return root;
     }
 
+    /**
+      Create a key for ordering documented entities.
+      @param name The name of the entity.
+      @param qualifiedName The qualified class name of the entity.
+    */
+
+    public @NotNull SortKey createSortKey(@NotNull String name, @NotNull String qualifiedName)
+    {
+        return SortKey.create(name, qualifiedName, collator);
+    }
+
+    /**
+      Return the statistics for the caches used by the doclet.
+    */
+
+    public @NotNull List<CacheStatistics> getCacheStatistics()
+    {
+        return List.of(analysisCache.getStatistics(),
+          antDocCache.getStatistics(),
+          docCommentCache.getStatistics(),
+          docUtils.getSourcePositionIndex().getStatistics(),
+          AugmentedDocCommentInfo.HTML_STATISTICS,
+          snippetTokenCache.getStatistics());
+    }
+
+    public @NotNull DocCommentCache getDocCommentCache()
+    {
+        return docCommentCache;
+    }
+
     public @NotNull Reporter getReporter()
     {
         return reporter;
     }
 
+    /**
+      Suppress or enable the diagnostics reported on the current thread.
+    */
+
+    public void setDiagnosticsSuppressed(boolean b)
+    {
+        reporter.setSuppressed(b);
+    }
+
     public boolean isIncluded(@NotNull TypeMirror t)
     {
         TypeElement te = docUtils.getType(t);
@@ -122,7 +181,7 @@ public class Environment
         Collection<AntDoc> ds = root.getAllDocumentedEntities();
 
         AntDoc named = antDocCache.get(name);
-        if (named != null && ds.contains(named)) {
+        if (named != null && root.isIncluded(named)) {
             return named.getTypeElement();
         }
         for (AntDoc d : ds) {
@@ -233,16 +292,84 @@ public class Environment
         if (info != null) {
             return info;
         }
-        DocCommentTree dc = env.getDocTrees().getDocCommentTree(e);
+        DocCommentTree dc = getDocCommentTree(e);
         if (dc == null) {
             return null;
         }
-        ElementContentProcessing ecp = ElementContentProcessing.create(e, linkSupport, reporter);
-        info = DocCommentAnalyzer.analyze(dc, ecp);
+        info = analyzeDocComment(e, dc);
         docCommentCache.put(e, info);
         return info;
     }
 
+    private @Nullable DocCommentTree getDocCommentTree(@NotNull Element e)
+    {
+        // The path retained by the source position index avoids searching the compilation unit for the element
+        TreePath path = docUtils.getSourcePositionIndex().getPath(e);
+        return path != null ? env.getDocTrees().getDocCommentTree(path) : env.getDocTrees().getDocCommentTree(e);
+    }
+
+    private @NotNull AugmentedDocCommentInfo analyzeDocComment(@NotNull Element e, @NotNull DocCommentTree dc)
+    {
+        ElementContentProcessing ecp = ElementContentProcessing.create(e, linkSupport, inlineTags,
+          snippetTokenCache, reporter);
+        DocletEvents.DocCommentAnalysisEvent event = new DocletEvents.DocCommentAnalysisEvent();
+        event.begin();
+        AugmentedDocCommentInfo info = DocCommentAnalyzer.analyze(dc, ecp);
+        event.end();
+        if (event.shouldCommit()) {
+            event.elementName = e.toString();
+            String comment = env.getElementUtils().getDocComment(e);
+            event.commentLength = comment != null ? comment.length() : 0;
+            event.commit();
+        }
+        return info;
+    }
+
+    /**
+      Analyze the documentation comments needed by the documented entities before they are requested. The comments
+      are analyzed one compilation unit at a time, in source order, using the paths found when each compilation unit
+      was indexed. Nothing is done if the documentation comment cache is bounded, as the entries could be evicted
+      before they are used.
+      @return the number of comments analyzed.
+    */
+
+    public int prefetchDocComments()
+    {
+        if (docCommentCache.isBounded()) {
+            return 0;
+        }
+
+        SourcePositionIndex index = docUtils.getSourcePositionIndex();
+        Map<CompilationUnitPositions,List<Element>> elementsByUnit = new LinkedHashMap<>();
+        for (AntDoc d : root.getAllDocumentedEntities()) {
+            for (Element e : d.getCommentedElements()) {
+                CompilationUnitPositions positions = index.getPositions(e);
+                if (positions != null && positions.contains(e)) {
+                    elementsByUnit.computeIfAbsent(positions, k -> new ArrayList<>()).add(e);
+                }
+            }
+        }
+
+        int count = 0;
+        for (Map.Entry<CompilationUnitPositions,List<Element>> entry : elementsByUnit.entrySet()) {
+            CompilationUnitPositions positions = entry.getKey();
+            List<Element> elements = entry.getValue();
+            elements.sort(Comparator.comparingLong(positions::getStartPosition));
+            for (Element e : elements) {
+                if (docCommentCache.contains(e)) {
+                    continue;
+                }
+                TreePath path = positions.getPath(e);
+                DocCommentTree dc = path != null ? env.getDocTrees().getDocCommentTree(path) : null;
+                if (dc != null) {
+                    docCommentCache.put(e, analyzeDocComment(e, dc));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
     /**
       Return the HTML description of an element.
       @param e The element.
@@ -334,6 +461,20 @@ public class Environment
         return docUtils.getLineNumber(e);
     }
 
+    /**
+      Return the index used to find the source positions of declarations.
+    */
+
+    public @NotNull SourcePositionIndex getSourcePositionIndex()
+    {
+        return docUtils.getSourcePositionIndex();
+    }
+
+    public @Nullable SourceLocation getSourceLocation(@NotNull Element e)
+    {
+        return docUtils.getSourcePositionIndex().getSourceLocation(e);
+    }
+
     public boolean isSubtypeOf(@NotNull TypeMirror m, @NotNull String typeName)
     {
         TypeElement te = getTypeElement(typeName);
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+  A writer that escapes the HTML metacharacters {@code &}, {@code <}, and {@code >} in the text written to it.
+  <p>
+  The text is scanned once. Runs of characters that need no escaping are passed to the underlying writer as a
+  single write.
+*/
+
+public class HtmlEscapingWriter
+  extends Writer
+{
+    public static @NotNull HtmlEscapingWriter create(@NotNull Writer out)
+    {
+        return new HtmlEscapingWriter(out);
+    }
+
+    /**
+      Escape the HTML metacharacters in a string.
+      @return the escaped string, which is {@code s} if no escaping is needed.
+    */
+
+    public static @NotNull String escape(@NotNull String s)
+    {
+        int len = s.length();
+        int i = 0;
+        while (i < len && getReplacement(s.charAt(i)) == null) {
+            i++;
+        }
+        if (i == len) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(len + 16);
+        sb.append(s, 0, i);
+        int start = i;
+        for (; i < len; i++) {
+            String r = getReplacement(s.charAt(i));
+            if (r != null) {
+                sb.append(s, start, i);
+                sb.append(r);
+                start = i + 1;
+            }
+        }
+        sb.append(s, start, len);
+        return sb.toString();
+    }
+
+    private static @Nullable String getReplacement(char c)
+    {
+        return switch (c) {
+            case '&' -> "&amp;";
+            case '<' -> "&lt;";
+            case '>' -> "&gt;";
+            default -> null;
+        };
+    }
+
+    private final @NotNull Writer out;
+
+    private HtmlEscapingWriter(@NotNull Writer out)
+    {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int c)
+      throws IOException
+    {
+        String r = getReplacement((char) c);
+        if (r != null) {
+            out.write(r);
+        } else {
+            out.write(c);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len)
+      throws IOException
+    {
+        int end = off + len;
+        int start = off;
+        for (int i = off; i < end; i++) {
+            String r = getReplacement(cbuf[i]);
+            if (r != null) {
+                if (i > start) {
+                    out.write(cbuf, start, i - start);
+                }
+                out.write(r);
+                start = i + 1;
+            }
+        }
+        if (end > start) {
+            out.write(cbuf, start, end - start);
+        }
+    }
+
+    @Override
+    public void write(@NotNull String s, int off, int len)
+      throws IOException
+    {
+        int end = off + len;
+        int start = off;
+        for (int i = off; i < end; i++) {
+            String r = getReplacement(s.charAt(i));
+            if (r != null) {
+                if (i > start) {
+                    out.write(s, start, i - start);
+                }
+                out.write(r);
+                start = i + 1;
+            }
+        }
+        if (end > start) {
+            out.write(s, start, end - start);
+        }
+    }
+
+    @Override
+    public void flush()
+      throws IOException
+    {
+        out.flush();
+    }
+
+    /**
+      Flush this writer. The underlying writer is not closed.
+    */
+
+    @Override
+    public void close()
+      throws IOException
+    {
+        out.flush();
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+  A writer that post-processes HTML as it is written. It can collapse whitespace and rewrite the URLs in
+  {@code href} and {@code src} attributes.
+  <p>
+  When collapsing whitespace, each run of whitespace characters in text and tags is replaced by a single newline, if
+  the run contains a newline, or by a single space. The content of {@code pre}, {@code textarea}, {@code script},
+  and {@code style} elements is not changed, nor is the content of quoted attribute values or comments.
+  <p>
+  The text is scanned once. Tags are buffered until they are complete; text is passed through as it is scanned.
+*/
+
+public class HtmlMinifyingWriter
+  extends Writer
+{
+    /**
+      Create a writer.
+      @param out The underlying writer.
+      @param collapseWhitespace True to collapse whitespace.
+      @param urlRewriter If not null, this function is applied to each {@code href} and {@code src} attribute value.
+    */
+
+    public static @NotNull HtmlMinifyingWriter create(@NotNull Writer out,
+                                                      boolean collapseWhitespace,
+                                                      @Nullable UnaryOperator<String> urlRewriter)
+    {
+        return new HtmlMinifyingWriter(out, collapseWhitespace, urlRewriter);
+    }
+
+    private static final Set<String> PRESERVED_ELEMENTS = Set.of("pre", "textarea", "script", "style");
+    private static final Pattern URL_ATTRIBUTE
+      = Pattern.compile("(?i)(\\s(?:href|src)\\s*=\\s*)(\"[^\"]*\"|'[^']*'|[^\\s\"'>]+)");
+
+    private enum State { TEXT, TAG, PRESERVED }
+
+    private final @NotNull Writer out;
+    private final boolean collapseWhitespace;
+    private final @Nullable UnaryOperator<String> urlRewriter;
+
+    private @NotNull State state = State.TEXT;
+    private final @NotNull StringBuilder tag = new StringBuilder();
+    private char quote;
+    private boolean pendingSpace;
+    private boolean pendingNewline;
+    private boolean hasOutput;
+
+    // The closing tag that ends preserved content, and the number of its characters that have been matched
+    private @Nullable String endTag;
+    private int endTagMatched;
+
+    private HtmlMinifyingWriter(@NotNull Writer out,
+                                boolean collapseWhitespace,
+                                @Nullable UnaryOperator<String> urlRewriter)
+    {
+        this.out = out;
+        this.collapseWhitespace = collapseWhitespace;
+        this.urlRewriter = urlRewriter;
+    }
+
+    @Override
+    public void write(int c)
+      throws IOException
+    {
+        process((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len)
+      throws IOException
+    {
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            process(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(@NotNull String s, int off, int len)
+      throws IOException
+    {
+        int end = off + len;
+        for (int i = off; i < end; i++) {
+            process(s.charAt(i));
+        }
+    }
+
+    private void process(char c)
+      throws IOException
+    {
+        switch (state) {
+            case TEXT -> processText(c);
+            case TAG -> processTag(c);
+            case PRESERVED -> processPreserved(c);
+        }
+    }
+
+    private void processText(char c)
+      throws IOException
+    {
+        if (collapseWhitespace && Character.isWhitespace(c)) {
+            pendingSpace = true;
+            pendingNewline |= c == '\n';
+            return;
+        }
+        writePendingSpace();
+        if (c == '<') {
+            state = State.TAG;
+            tag.append(c);
+        } else {
+            out.write(c);
+            hasOutput = true;
+        }
+    }
+
+    private void writePendingSpace()
+      throws IOException
+    {
+        if (pendingSpace) {
+            if (hasOutput) {
+                out.write(pendingNewline ? '\n' : ' ');
+            }
+            pendingSpace = false;
+            pendingNewline = false;
+        }
+    }
+
+    private void processTag(char c)
+      throws IOException
+    {
+        boolean isComment = tag.length() >= 4 && tag.charAt(1) == '!' && tag.charAt(2) == '-' && tag.charAt(3) == '-';
+        if (quote != 0) {
+            if (c == quote) {
+                quote = 0;
+            }
+        } else if (isComment) {
+            if (c == '>' && tag.length() >= 6 && tag.charAt(tag.length() - 1) == '-'
+              && tag.charAt(tag.length() - 2) == '-') {
+                tag.append(c);
+                endTag();
+                return;
+            }
+        } else if (c == '"' || c == '\'') {
+            // A quote in an attribute value begins a quoted string
+            if (tag.length() > 0 && isAttributeValueStart()) {
+                quote = c;
+            }
+        } else if (c == '>') {
+            tag.append(c);
+            endTag();
+            return;
+        } else if (collapseWhitespace && Character.isWhitespace(c)) {
+            char last = tag.charAt(tag.length() - 1);
+            if (last == ' ' || last == '\n') {
+                if (c == '\n') {
+                    tag.setCharAt(tag.length() - 1, '\n');
+                }
+                return;
+            }
+            c = c == '\n' ? '\n' : ' ';
+        }
+        tag.append(c);
+    }
+
+    private boolean isAttributeValueStart()
+    {
+        for (int i = tag.length() - 1; i >= 0; i--) {
+            char ch = tag.charAt(i);
+            if (ch == '=') {
+                return true;
+            }
+            if (!Character.isWhitespace(ch)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private void endTag()
+      throws IOException
+    {
+        String s = tag.toString();
+        tag.setLength(0);
+        state = State.TEXT;
+
+        if (urlRewriter != null && !s.startsWith("<!")) {
+            s = rewriteUrls(s);
+        }
+        out.write(s);
+        hasOutput = true;
+
+        String name = getElementName(s);
+        if (name != null && PRESERVED_ELEMENTS.contains(name) && !s.endsWith("/>")) {
+            state = State.PRESERVED;
+            endTag = "</" + name;
+            endTagMatched = 0;
+        }
+    }
+
+    private @NotNull String rewriteUrls(@NotNull String s)
+    {
+        assert urlRewriter != null;
+        Matcher m = URL_ATTRIBUTE.matcher(s);
+        StringBuilder sb = null;
+        int last = 0;
+        while (m.find()) {
+            String value = m.group(2);
+            char q = value.charAt(0);
+            boolean isQuoted = q == '"' || q == '\'';
+            String url = isQuoted ? value.substring(1, value.length() - 1) : value;
+            String rewritten = urlRewriter.apply(url);
+            if (!rewritten.equals(url)) {
+                if (sb == null) {
+                    sb = new StringBuilder(s.length() + 16);
+                }
+                sb.append(s, last, m.start(2));
+                sb.append(isQuoted ? q + rewritten + q : rewritten);
+                last = m.end(2);
+            }
+        }
+        if (sb == null) {
+            return s;
+        }
+        sb.append(s, last, s.length());
+        return sb.toString();
+    }
+
+    /**
+      Return the lower case name of the element started by a tag.
+      @return the name, or null if the tag is not a start tag.
+    */
+
+    private static @Nullable String getElementName(@NotNull String tag)
+    {
+        int i = 1;
+        int end = i;
+        while (end < tag.length() && Character.isLetterOrDigit(tag.charAt(end))) {
+            end++;
+        }
+        return end > i ? tag.substring(i, end).toLowerCase(Locale.ROOT) : null;
+    }
+
+    private void processPreserved(char c)
+      throws IOException
+    {
+        assert endTag != null;
+        if (Character.toLowerCase(c) == endTag.charAt(endTagMatched)) {
+            endTagMatched++;
+            if (endTagMatched == endTag.length()) {
+                // The closing tag is processed as a tag
+                state = State.TAG;
+                tag.append(endTag);
+                endTag = null;
+            }
+            return;
+        }
+        if (endTagMatched > 0) {
+            out.write(endTag, 0, endTagMatched);
+            endTagMatched = 0;
+            if (c == '<') {
+                endTagMatched = 1;
+                return;
+            }
+        }
+        out.write(c);
+    }
+
+    @Override
+    public void flush()
+      throws IOException
+    {
+        out.flush();
+    }
+
+    /**
+      Write any buffered text and flush this writer. The underlying writer is not closed.
+    */
+
+    @Override
+    public void close()
+      throws IOException
+    {
+        if (tag.length() > 0) {
+            out.write(tag.toString());
+            tag.setLength(0);
+        }
+        if (state == State.PRESERVED && endTag != null && endTagMatched > 0) {
+            out.write(endTag, 0, endTagMatched);
+            endTagMatched = 0;
+        }
+        out.flush();
+    }
+}
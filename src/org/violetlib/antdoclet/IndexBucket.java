@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+  The entries of an index whose names start with the same letter.
+  @param label The upper case initial letter, or "#" for names that do not start with a letter.
+  @param pageNumber The number of the page containing the first entry of the bucket.
+  @param count The number of entries.
+*/
+
+public record IndexBucket(@NotNull String label, int pageNumber, int count)
+{
+    // For template use
+    public @NotNull String getLabel()
+    {
+        return label;
+    }
+
+    // For template use
+    public int getPageNumber()
+    {
+        return pageNumber;
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+  One page of an index of the tasks and types in a category. An index lists the tasks followed by the types; the
+  entries are divided into pages of a fixed size, so a page may contain tasks, types, or both.
+  <p>
+  Pages are numbered starting with 1.
+*/
+
+public class IndexPage
+{
+    /**
+      The maximum distance from the current page of the pages linked to by number, other than the first and last.
+    */
+
+    public static final int NAVIGATION_RADIUS = 5;
+
+    public static @NotNull IndexPage create(int number,
+                                            int pageCount,
+                                            @NotNull List<EntityModel> tasks,
+                                            @NotNull List<EntityModel> types,
+                                            @NotNull List<IndexBucket> taskBuckets,
+                                            @NotNull List<IndexBucket> typeBuckets)
+    {
+        return new IndexPage(number, pageCount, tasks, types, taskBuckets, typeBuckets);
+    }
+
+    private final int number;
+    private final int pageCount;
+    private final @NotNull List<EntityModel> tasks;
+    private final @NotNull List<EntityModel> types;
+    private final @NotNull List<IndexBucket> taskBuckets;
+    private final @NotNull List<IndexBucket> typeBuckets;
+
+    private IndexPage(int number,
+                      int pageCount,
+                      @NotNull List<EntityModel> tasks,
+                      @NotNull List<EntityModel> types,
+                      @NotNull List<IndexBucket> taskBuckets,
+                      @NotNull List<IndexBucket> typeBuckets)
+    {
+        this.number = number;
+        this.pageCount = pageCount;
+        this.tasks = List.copyOf(tasks);
+        this.types = List.copyOf(types);
+        this.taskBuckets = taskBuckets;
+        this.typeBuckets = typeBuckets;
+    }
+
+    // For template use
+    public int getNumber()
+    {
+        return number;
+    }
+
+    // For template use
+    public int getPageCount()
+    {
+        return pageCount;
+    }
+
+    // For template use
+    public boolean isFirst()
+    {
+        return number == 1;
+    }
+
+    // For template use
+    public boolean isLast()
+    {
+        return number == pageCount;
+    }
+
+    // For template use
+    public int getPreviousNumber()
+    {
+        return number - 1;
+    }
+
+    // For template use
+    public int getNextNumber()
+    {
+        return number + 1;
+    }
+
+    /**
+      Return the numbers of the pages to link to from this page, for use in navigation. The numbers are the first
+      page, the last page, and the pages within a fixed distance of this page, in ascending order. A zero is
+      inserted where pages are omitted. The number of page numbers is independent of the number of pages, so the
+      total size of the navigation is linear in the number of pages.
+    */
+
+    // For template use
+    public @NotNull List<Integer> getPageNumbers()
+    {
+        int first = Math.max(1, number - NAVIGATION_RADIUS);
+        int last = Math.min(pageCount, number + NAVIGATION_RADIUS);
+
+        // A gap of one page is filled by that page
+        if (first == 3) {
+            first = 2;
+        }
+        if (last == pageCount - 2) {
+            last = pageCount - 1;
+        }
+
+        List<Integer> result = new ArrayList<>(last - first + 5);
+        if (first > 1) {
+            result.add(1);
+            if (first > 2) {
+                result.add(0);
+            }
+        }
+        for (int i = first; i <= last; i++) {
+            result.add(i);
+        }
+        if (last < pageCount) {
+            if (last < pageCount - 1) {
+                result.add(0);
+            }
+            result.add(pageCount);
+        }
+        return result;
+    }
+
+    /**
+      Return the alphabetic buckets of the tasks in the index, for use in navigation.
+    */
+
+    // For template use
+    public @NotNull List<IndexBucket> getTaskBuckets()
+    {
+        return taskBuckets;
+    }
+
+    /**
+      Return the alphabetic buckets of the types in the index, for use in navigation.
+    */
+
+    // For template use
+    public @NotNull List<IndexBucket> getTypeBuckets()
+    {
+        return typeBuckets;
+    }
+
+    // For template use
+    public @NotNull List<EntityModel> getTasks()
+    {
+        return tasks;
+    }
+
+    // For template use
+    public @NotNull List<EntityModel> getTypes()
+    {
+        return types;
+    }
+
+    /**
+      Return the entries of this page as a JSON array, for use by a script that loads index pages on demand. Each
+      entry is an array containing the Ant name, the qualified class name, the kind ("task" or "type"), and the HTML
+      short description (or null).
+    */
+
+    // For template use
+    public @NotNull String getEntriesJson()
+    {
+        StringWriter sw = new StringWriter();
+        try {
+            JsonWriter json = JsonWriter.create(sw);
+            json.beginArray();
+            for (EntityModel m : tasks) {
+                writeEntry(json, m);
+            }
+            for (EntityModel m : types) {
+                writeEntry(json, m);
+            }
+            json.endArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sw.toString();
+    }
+
+    private static void writeEntry(@NotNull JsonWriter json, @NotNull EntityModel m)
+      throws IOException
+    {
+        json.beginArray();
+        json.value(m.antName());
+        json.value(m.fullClassName());
+        json.value(m.isTask() ? "task" : "type");
+        json.value(m.shortDescription());
+        json.endArray();
+    }
+}
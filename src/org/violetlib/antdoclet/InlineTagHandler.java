@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import com.sun.source.doctree.UnknownInlineTagTree;
+import org.jetbrains.annotations.NotNull;
+
+/**
+  A handler that converts a custom inline tag (such as {@code {@ant.attr}}) to HTML.
+  <p>
+  Handlers are registered with an {@link InlineTagRegistry}. A handler class named using the {@code -inlinetags}
+  option must have a public no-argument constructor.
+*/
+
+public interface InlineTagHandler
+{
+    /**
+      Return the name of the inline tag supported by this handler, without the leading {@code @}.
+    */
+
+    @NotNull String getTagName();
+
+    /**
+      Write the HTML for an occurrence of the inline tag.
+      @param tag The inline tag.
+      @param p The content processor, which should be used to write output and to process nested content.
+    */
+
+    void write(@NotNull UnknownInlineTagTree tag, @NotNull ContentProcessor p);
+}
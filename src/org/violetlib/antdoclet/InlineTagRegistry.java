@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+  The handlers for custom inline tags, indexed by tag name. Inline tags with no registered handler are rendered
+  as their content.
+*/
+
+public class InlineTagRegistry
+{
+    public static @NotNull InlineTagRegistry create()
+    {
+        return new InlineTagRegistry();
+    }
+
+    private final @NotNull Map<String,InlineTagHandler> handlers = new HashMap<>();
+
+    private InlineTagRegistry()
+    {
+    }
+
+    /**
+      Register a handler. A previously registered handler for the same tag name is replaced.
+    */
+
+    public void register(@NotNull InlineTagHandler handler)
+    {
+        handlers.put(handler.getTagName(), handler);
+    }
+
+    /**
+      Return the handler for the specified tag name.
+      @param tagName The tag name, without the leading {@code @}.
+      @return the handler, or null if no handler is registered for the tag name.
+    */
+
+    public @Nullable InlineTagHandler get(@NotNull String tagName)
+    {
+        return handlers.get(tagName);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+
+/**
+  A writer that produces JSON text as it is written, without building a document in memory. The caller is
+  responsible for calling the methods in a valid order: a member name must precede each value in an object, and
+  every object and array must be ended.
+*/
+
+public class JsonWriter
+{
+    public static @NotNull JsonWriter create(@NotNull Writer out)
+    {
+        return new JsonWriter(out);
+    }
+
+    private final @NotNull Writer out;
+
+    // For each open object or array, whether a value has been written to it
+    private final @NotNull BitSet hasValue = new BitSet();
+    private int depth;
+    private boolean afterName;
+
+    private JsonWriter(@NotNull Writer out)
+    {
+        this.out = out;
+    }
+
+    public @NotNull JsonWriter beginObject()
+      throws IOException
+    {
+        return open('{');
+    }
+
+    public @NotNull JsonWriter endObject()
+      throws IOException
+    {
+        return close('}');
+    }
+
+    public @NotNull JsonWriter beginArray()
+      throws IOException
+    {
+        return open('[');
+    }
+
+    public @NotNull JsonWriter endArray()
+      throws IOException
+    {
+        return close(']');
+    }
+
+    /**
+      Write the name of an object member. The value must be written next.
+    */
+
+    public @NotNull JsonWriter name(@NotNull String name)
+      throws IOException
+    {
+        separate();
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public @NotNull JsonWriter value(@Nullable String s)
+      throws IOException
+    {
+        separate();
+        if (s == null) {
+            out.write("null");
+        } else {
+            writeString(s);
+        }
+        return this;
+    }
+
+    public @NotNull JsonWriter value(boolean b)
+      throws IOException
+    {
+        separate();
+        out.write(b ? "true" : "false");
+        return this;
+    }
+
+    public @NotNull JsonWriter value(long n)
+      throws IOException
+    {
+        separate();
+        out.write(Long.toString(n));
+        return this;
+    }
+
+    /**
+      Write an object member whose value is a string. Nothing is written if the value is null.
+    */
+
+    public @NotNull JsonWriter member(@NotNull String name, @Nullable String value)
+      throws IOException
+    {
+        if (value != null) {
+            name(name).value(value);
+        }
+        return this;
+    }
+
+    public @NotNull JsonWriter member(@NotNull String name, boolean value)
+      throws IOException
+    {
+        return name(name).value(value);
+    }
+
+    public void flush()
+      throws IOException
+    {
+        out.flush();
+    }
+
+    private @NotNull JsonWriter open(char c)
+      throws IOException
+    {
+        separate();
+        out.write(c);
+        depth++;
+        hasValue.clear(depth);
+        return this;
+    }
+
+    private @NotNull JsonWriter close(char c)
+      throws IOException
+    {
+        if (depth == 0) {
+            throw new IllegalStateException("No open object or array");
+        }
+        depth--;
+        out.write(c);
+        return this;
+    }
+
+    private void separate()
+      throws IOException
+    {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasValue.get(depth)) {
+                out.write(',');
+            } else {
+                hasValue.set(depth);
+            }
+        }
+    }
+
+    private void writeString(@NotNull String s)
+      throws IOException
+    {
+        out.write('"');
+        int start = 0;
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            String escape = null;
+            if (c == '"') {
+                escape = "\\\"";
+            } else if (c == '\\') {
+                escape = "\\\\";
+            } else if (c == '\n') {
+                escape = "\\n";
+            } else if (c == '\r') {
+                escape = "\\r";
+            } else if (c == '\t') {
+                escape = "\\t";
+            } else if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                escape = String.format("\\u%04x", (int) c);
+            }
+            if (escape != null) {
+                out.write(s, start, i - start);
+                out.write(escape);
+                start = i + 1;
+            }
+        }
+        out.write(s, start, length - start);
+        out.write('"');
+    }
+}
@@ -140,6 +140,20 @@ public class LinkSupport
     */
 
     public @Nullable URI getLinkTarget(@Nullable Element context, @NotNull String typeName)
+    {
+        DocletEvents.LinkResolutionEvent event = new DocletEvents.LinkResolutionEvent();
+        event.begin();
+        URI result = resolveLinkTarget(context, typeName);
+        event.end();
+        if (event.shouldCommit()) {
+            event.name = typeName;
+            event.target = result != null ? result.toString() : null;
+            event.commit();
+        }
+        return result;
+    }
+
+    private @Nullable URI resolveLinkTarget(@Nullable Element context, @NotNull String typeName)
     {
         // Test to see if the type has a page in this documentation set
         TypeElement te = env.getIncludedTypeElement(typeName);
@@ -206,6 +220,20 @@ public class LinkSupport
     */
 
     public @Nullable URI getLinkTarget(@NotNull TypeElement te)
+    {
+        DocletEvents.LinkResolutionEvent event = new DocletEvents.LinkResolutionEvent();
+        event.begin();
+        URI result = resolveLinkTarget(te);
+        event.end();
+        if (event.shouldCommit()) {
+            event.name = te.getQualifiedName().toString();
+            event.target = result != null ? result.toString() : null;
+            event.commit();
+        }
+        return result;
+    }
+
+    private @Nullable URI resolveLinkTarget(@NotNull TypeElement te)
     {
         // Test to see if the type has a page in this documentation set
         if (env.getIncludedTypeElement(te.getQualifiedName().toString()) != null) {
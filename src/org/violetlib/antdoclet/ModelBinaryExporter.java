@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+import static org.violetlib.antdoclet.ModelBinaryReader.*;
+
+/**
+  Write a snapshot of the documented tasks and types in the binary format read by {@link ModelBinaryReader}.
+  The detailed information about each entity is obtained (and possibly created) as the entity is written.
+*/
+
+public class ModelBinaryExporter
+{
+    /**
+      Write the specified model to a file.
+    */
+
+    public static void export(@NotNull RootModel root, @NotNull Path file)
+      throws IOException
+    {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            new ModelBinaryExporter().write(root, out);
+        }
+    }
+
+    private final @NotNull List<byte[]> strings = new ArrayList<>();
+    private final @NotNull Map<String,Integer> stringIds = new HashMap<>();
+    private final @NotNull ByteArrayOutputStream entityBytes = new ByteArrayOutputStream();
+    private final @NotNull DataOutputStream entities = new DataOutputStream(entityBytes);
+    private final @NotNull ByteArrayOutputStream attributeBytes = new ByteArrayOutputStream();
+    private final @NotNull DataOutputStream attributes = new DataOutputStream(attributeBytes);
+    private final @NotNull ByteArrayOutputStream nestedBytes = new ByteArrayOutputStream();
+    private final @NotNull DataOutputStream nested = new DataOutputStream(nestedBytes);
+    private final @NotNull ByteArrayOutputStream nestedTypeBytes = new ByteArrayOutputStream();
+    private final @NotNull DataOutputStream nestedTypes = new DataOutputStream(nestedTypeBytes);
+    private int attributeCount;
+    private int nestedCount;
+    private int nestedTypeCount;
+
+    private ModelBinaryExporter()
+    {
+    }
+
+    private void write(@NotNull RootModel root, @NotNull OutputStream os)
+      throws IOException
+    {
+        Set<EntityModel> primary = new HashSet<>(root.getAllPrimary());
+        Set<EntityModel> auxiliary = new HashSet<>(root.getAuxiliaryTypes());
+        Set<EntityModel> uncategorized = new HashSet<>(root.getAllUncategorized());
+
+        List<EntityModel> all = root.getAllDocumentedEntities();
+        for (EntityModel m : all) {
+            int flags = 0;
+            flags |= m.isTask() ? F_TASK : 0;
+            flags |= m.isTaskContainer() ? F_TASK_CONTAINER : 0;
+            flags |= m.isIgnored() ? F_IGNORED : 0;
+            flags |= m.supportsText() ? F_SUPPORTS_TEXT : 0;
+            flags |= primary.contains(m) ? F_PRIMARY : 0;
+            flags |= auxiliary.contains(m) ? F_AUXILIARY : 0;
+            flags |= uncategorized.contains(m) ? F_UNCATEGORIZED : 0;
+            writeEntity(m, flags);
+        }
+
+        List<String> categories = root.getCategories();
+        int[] categoryIds = new int[categories.size()];
+        for (int i = 0; i < categoryIds.length; i++) {
+            categoryIds[i] = intern(categories.get(i));
+        }
+
+        int[] antNameIndex = createIndex(all.size(), i -> all.get(i).antName());
+        int[] classNameIndex = createIndex(all.size(), i -> all.get(i).fullClassName());
+
+        // Compute the location of each table
+
+        int stringIndexOffset = HEADER_SIZE;
+        int stringDataOffset = stringIndexOffset + 4 * (strings.size() + 1);
+        int stringDataSize = 0;
+        for (byte[] s : strings) {
+            stringDataSize += s.length;
+        }
+        int entityTableOffset = align(stringDataOffset + stringDataSize);
+        int attributeTableOffset = entityTableOffset + entityBytes.size();
+        int nestedTableOffset = attributeTableOffset + attributeBytes.size();
+        int nestedTypeTableOffset = nestedTableOffset + nestedBytes.size();
+        int categoryTableOffset = nestedTypeTableOffset + nestedTypeBytes.size();
+        int antNameIndexOffset = categoryTableOffset + 4 * categoryIds.length;
+        int classNameIndexOffset = antNameIndexOffset + 4 * antNameIndex.length;
+
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.size());
+        out.writeInt(stringIndexOffset);
+        out.writeInt(stringDataOffset);
+        out.writeInt(all.size());
+        out.writeInt(entityTableOffset);
+        out.writeInt(attributeCount);
+        out.writeInt(attributeTableOffset);
+        out.writeInt(nestedCount);
+        out.writeInt(nestedTableOffset);
+        out.writeInt(categoryIds.length);
+        out.writeInt(categoryTableOffset);
+        out.writeInt(antNameIndexOffset);
+        out.writeInt(classNameIndexOffset);
+        out.writeInt(nestedTypeTableOffset);
+        while (out.size() < HEADER_SIZE) {
+            out.writeInt(0);
+        }
+
+        int offset = 0;
+        for (byte[] s : strings) {
+            out.writeInt(offset);
+            offset += s.length;
+        }
+        out.writeInt(offset);
+        for (byte[] s : strings) {
+            out.write(s);
+        }
+        while (out.size() < entityTableOffset) {
+            out.writeByte(0);
+        }
+
+        entityBytes.writeTo(out);
+        attributeBytes.writeTo(out);
+        nestedBytes.writeTo(out);
+        nestedTypeBytes.writeTo(out);
+        writeInts(out, categoryIds);
+        writeInts(out, antNameIndex);
+        writeInts(out, classNameIndex);
+        out.flush();
+    }
+
+    private void writeEntity(@NotNull EntityModel m, int flags)
+      throws IOException
+    {
+        EntityDetail d = m.detail();
+
+        entities.writeInt(intern(m.antName()));
+        entities.writeInt(intern(m.className()));
+        entities.writeInt(intern(m.fullClassName()));
+        entities.writeInt(intern(m.antCategory()));
+        entities.writeInt(intern(m.shortDescription()));
+        entities.writeInt(intern(d.description()));
+        entities.writeInt(flags);
+
+        entities.writeInt(attributeCount);
+        entities.writeInt(d.attributes().size());
+        for (AttributeModel a : d.attributes()) {
+            attributes.writeInt(intern(a.name()));
+            attributes.writeInt(intern(a.type()));
+            attributes.writeInt(intern(a.typeLinked()));
+            attributes.writeInt(intern(a.types()));
+            attributes.writeInt(intern(a.typesLinked()));
+            attributes.writeInt(intern(a.description()));
+            attributes.writeInt(intern(a.required()));
+            attributes.writeInt(intern(a.notRequired()));
+            attributeCount++;
+        }
+
+        entities.writeInt(nestedCount);
+        entities.writeInt(d.namedElements().size() + d.nestedElementTypes().size());
+        for (NestedElementModel e : d.namedElements()) {
+            writeNestedElement(e);
+        }
+        for (NestedElementModel e : d.nestedElementTypes()) {
+            writeNestedElement(e);
+        }
+    }
+
+    private void writeNestedElement(@NotNull NestedElementModel e)
+      throws IOException
+    {
+        nested.writeInt(intern(e.name()));
+        nested.writeInt(intern(e.typeClassName()));
+        nested.writeInt(intern(e.typeNames()));
+        nested.writeInt(intern(e.typeLinked()));
+        nested.writeInt(intern(e.typesLinked()));
+        nested.writeInt(intern(e.description()));
+        nested.writeInt(nestedTypeCount);
+        nested.writeInt(e.typeClassNames().size());
+        for (String name : e.typeClassNames()) {
+            nestedTypes.writeInt(intern(name));
+            nestedTypeCount++;
+        }
+        nestedCount++;
+    }
+
+    private int intern(@Nullable String s)
+    {
+        if (s == null) {
+            return -1;
+        }
+        Integer id = stringIds.get(s);
+        if (id == null) {
+            id = strings.size();
+            strings.add(s.getBytes(StandardCharsets.UTF_8));
+            stringIds.put(s, id);
+        }
+        return id;
+    }
+
+    /**
+      Return the entity numbers ordered by the specified key, using the same ordering as the reader.
+    */
+
+    private static int @NotNull [] createIndex(int count, @NotNull IntFunction<String> key)
+    {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(key::apply).thenComparing(Comparator.naturalOrder()));
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = order[i];
+        }
+        return result;
+    }
+
+    private static int align(int offset)
+    {
+        return (offset + 3) & ~3;
+    }
+
+    private static void writeInts(@NotNull DataOutputStream out, int @NotNull [] values)
+      throws IOException
+    {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+  Answer queries about a model written by {@link ModelBinaryExporter}. The file is memory mapped and only the
+  records and strings needed to answer a query are decoded, so opening a large model is fast.
+  <p>
+  The file begins with a fixed size header that identifies the format and version and gives the size and location
+  of each table. Strings are stored once, as UTF-8, and are referred to by number; -1 represents null. Entities,
+  attributes, and nested elements are stored in tables of fixed size records. Each entity record refers to a range
+  of the attribute table and a range of the nested element table. Each nested element record refers to a range of
+  the nested type table, which contains the qualified class names of the element types. Two tables of entity
+  numbers, ordered by Ant name and by qualified class name, support lookup by binary search. All integers are
+  big-endian, so the file size is limited to 2 GB.
+  <p>
+  Source locations are not recorded, as they refer to files that may not be available when the model is used.
+  <p>
+  Entities are identified by their position in the entity table, which follows the order of
+  {@link RootModel#getAllDocumentedEntities}.
+*/
+
+public class ModelBinaryReader
+{
+    public static final int MAGIC = 0x41444D42; // "ADMB"
+    public static final int VERSION = 2;
+
+    // Header layout: each field is an int at the specified offset
+    static final int HEADER_SIZE = 64;
+    static final int H_MAGIC = 0;
+    static final int H_VERSION = 4;
+    static final int H_STRING_COUNT = 8;
+    static final int H_STRING_INDEX = 12;
+    static final int H_STRING_DATA = 16;
+    static final int H_ENTITY_COUNT = 20;
+    static final int H_ENTITY_TABLE = 24;
+    static final int H_ATTRIBUTE_COUNT = 28;
+    static final int H_ATTRIBUTE_TABLE = 32;
+    static final int H_NESTED_COUNT = 36;
+    static final int H_NESTED_TABLE = 40;
+    static final int H_CATEGORY_COUNT = 44;
+    static final int H_CATEGORY_TABLE = 48;
+    static final int H_ANT_NAME_INDEX = 52;
+    static final int H_CLASS_NAME_INDEX = 56;
+    static final int H_NESTED_TYPE_TABLE = 60;
+
+    // Entity record layout: each field is an int at the specified offset
+    static final int ENTITY_SIZE = 44;
+    static final int E_ANT_NAME = 0;
+    static final int E_CLASS_NAME = 4;
+    static final int E_FULL_CLASS_NAME = 8;
+    static final int E_CATEGORY = 12;
+    static final int E_SHORT_DESCRIPTION = 16;
+    static final int E_DESCRIPTION = 20;
+    static final int E_FLAGS = 24;
+    static final int E_FIRST_ATTRIBUTE = 28;
+    static final int E_ATTRIBUTE_COUNT = 32;
+    static final int E_FIRST_NESTED = 36;
+    static final int E_NESTED_COUNT = 40;
+
+    // Entity flags
+    static final int F_TASK = 1;
+    static final int F_TASK_CONTAINER = 2;
+    static final int F_IGNORED = 4;
+    static final int F_SUPPORTS_TEXT = 8;
+    static final int F_PRIMARY = 16;
+    static final int F_AUXILIARY = 32;
+    static final int F_UNCATEGORIZED = 64;
+
+    // Attribute record: name, type, typeLinked, types, typesLinked, description, required, notRequired
+    static final int ATTRIBUTE_SIZE = 32;
+
+    // Nested element record: name, typeClassName, typeNames, typeLinked, typesLinked, description, firstType,
+    // typeCount
+    static final int NESTED_SIZE = 32;
+    static final int N_FIRST_TYPE = 24;
+    static final int N_TYPE_COUNT = 28;
+
+    /**
+      Open a model file.
+      @throws IOException if the file cannot be read or is not a model file of a supported version.
+    */
+
+    public static @NotNull ModelBinaryReader open(@NotNull Path file)
+      throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a model file: " + file);
+            }
+            ByteBuffer b = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (b.getInt(H_MAGIC) != MAGIC) {
+                throw new IOException("Not a model file: " + file);
+            }
+            int version = b.getInt(H_VERSION);
+            if (version != VERSION) {
+                throw new IOException("Unsupported model file version " + version + ": " + file);
+            }
+            return new ModelBinaryReader(b);
+        }
+    }
+
+    private final @NotNull ByteBuffer buffer;
+    private final int stringCount;
+    private final int stringIndex;
+    private final int stringData;
+    private final int entityCount;
+    private final int entityTable;
+    private final int attributeTable;
+    private final int nestedTable;
+    private final int nestedTypeTable;
+    private final int categoryCount;
+    private final int categoryTable;
+    private final int antNameIndex;
+    private final int classNameIndex;
+
+    private ModelBinaryReader(@NotNull ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.stringCount = buffer.getInt(H_STRING_COUNT);
+        this.stringIndex = buffer.getInt(H_STRING_INDEX);
+        this.stringData = buffer.getInt(H_STRING_DATA);
+        this.entityCount = buffer.getInt(H_ENTITY_COUNT);
+        this.entityTable = buffer.getInt(H_ENTITY_TABLE);
+        this.attributeTable = buffer.getInt(H_ATTRIBUTE_TABLE);
+        this.nestedTable = buffer.getInt(H_NESTED_TABLE);
+        this.nestedTypeTable = buffer.getInt(H_NESTED_TYPE_TABLE);
+        this.categoryCount = buffer.getInt(H_CATEGORY_COUNT);
+        this.categoryTable = buffer.getInt(H_CATEGORY_TABLE);
+        this.antNameIndex = buffer.getInt(H_ANT_NAME_INDEX);
+        this.classNameIndex = buffer.getInt(H_CLASS_NAME_INDEX);
+    }
+
+    /**
+      Return the number of entities.
+    */
+
+    public int getEntityCount()
+    {
+        return entityCount;
+    }
+
+    /**
+      Return the names of the explicitly defined categories.
+    */
+
+    public @NotNull List<String> getCategories()
+    {
+        List<String> result = new ArrayList<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            result.add(requireString(buffer.getInt(categoryTable + 4 * i)));
+        }
+        return result;
+    }
+
+    /**
+      Find an entity by the qualified name of its class.
+      @return the entity number, or -1 if not found.
+    */
+
+    public int findEntity(@NotNull String fullClassName)
+    {
+        int low = 0;
+        int high = entityCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entity = buffer.getInt(classNameIndex + 4 * mid);
+            int c = getFullClassName(entity).compareTo(fullClassName);
+            if (c < 0) {
+                low = mid + 1;
+            } else if (c > 0) {
+                high = mid - 1;
+            } else {
+                return entity;
+            }
+        }
+        return -1;
+    }
+
+    /**
+      Find the entities with the specified Ant name. More than one entity may have the same name, for example, a
+      task and a type.
+      @return the entity numbers, in entity order.
+    */
+
+    public @NotNull List<Integer> findEntitiesByAntName(@NotNull String antName)
+    {
+        // Find the first index entry whose name is not less than the specified name
+        int low = 0;
+        int high = entityCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getAntName(buffer.getInt(antNameIndex + 4 * mid)).compareTo(antName) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<Integer> result = new ArrayList<>();
+        for (int i = low; i < entityCount; i++) {
+            int entity = buffer.getInt(antNameIndex + 4 * i);
+            if (!getAntName(entity).equals(antName)) {
+                break;
+            }
+            result.add(entity);
+        }
+        return result;
+    }
+
+    public @NotNull String getAntName(int entity)
+    {
+        return requireString(entityField(entity, E_ANT_NAME));
+    }
+
+    public @NotNull String getClassName(int entity)
+    {
+        return requireString(entityField(entity, E_CLASS_NAME));
+    }
+
+    public @NotNull String getFullClassName(int entity)
+    {
+        return requireString(entityField(entity, E_FULL_CLASS_NAME));
+    }
+
+    public @Nullable String getCategory(int entity)
+    {
+        return getString(entityField(entity, E_CATEGORY));
+    }
+
+    public @Nullable String getShortDescription(int entity)
+    {
+        return getString(entityField(entity, E_SHORT_DESCRIPTION));
+    }
+
+    public @NotNull String getDescription(int entity)
+    {
+        return requireString(entityField(entity, E_DESCRIPTION));
+    }
+
+    public boolean isTask(int entity)
+    {
+        return hasFlag(entity, F_TASK);
+    }
+
+    public boolean isTaskContainer(int entity)
+    {
+        return hasFlag(entity, F_TASK_CONTAINER);
+    }
+
+    public boolean isIgnored(int entity)
+    {
+        return hasFlag(entity, F_IGNORED);
+    }
+
+    public boolean supportsText(int entity)
+    {
+        return hasFlag(entity, F_SUPPORTS_TEXT);
+    }
+
+    public boolean isPrimary(int entity)
+    {
+        return hasFlag(entity, F_PRIMARY);
+    }
+
+    public boolean isAuxiliary(int entity)
+    {
+        return hasFlag(entity, F_AUXILIARY);
+    }
+
+    public boolean isUncategorized(int entity)
+    {
+        return hasFlag(entity, F_UNCATEGORIZED);
+    }
+
+    /**
+      Return the attributes of an entity, in source order.
+    */
+
+    public @NotNull List<AttributeModel> getAttributes(int entity)
+    {
+        int first = entityField(entity, E_FIRST_ATTRIBUTE);
+        int count = entityField(entity, E_ATTRIBUTE_COUNT);
+        List<AttributeModel> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int p = attributeTable + (first + i) * ATTRIBUTE_SIZE;
+            result.add(new AttributeModel(
+              requireString(buffer.getInt(p)),
+              getString(buffer.getInt(p + 4)),
+              getString(buffer.getInt(p + 8)),
+              getString(buffer.getInt(p + 12)),
+              getString(buffer.getInt(p + 16)),
+              requireString(buffer.getInt(p + 20)),
+              getString(buffer.getInt(p + 24)),
+              getString(buffer.getInt(p + 28)),
+              null));
+        }
+        return result;
+    }
+
+    /**
+      Return the named and unnamed nested elements of an entity. Named elements precede unnamed elements; each
+      group is in source order.
+    */
+
+    public @NotNull List<NestedElementModel> getNestedElements(int entity)
+    {
+        int first = entityField(entity, E_FIRST_NESTED);
+        int count = entityField(entity, E_NESTED_COUNT);
+        List<NestedElementModel> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int p = nestedTable + (first + i) * NESTED_SIZE;
+            List<String> typeClassNames = new ArrayList<>();
+            addTypeClassNames(p, typeClassNames);
+            result.add(new NestedElementModel(
+              getString(buffer.getInt(p)),
+              getString(buffer.getInt(p + 4)),
+              typeClassNames,
+              requireString(buffer.getInt(p + 8)),
+              requireString(buffer.getInt(p + 12)),
+              requireString(buffer.getInt(p + 16)),
+              getString(buffer.getInt(p + 20)),
+              null));
+        }
+        return result;
+    }
+
+    /**
+      Return the qualified class names of the types that can be nested in an entity, without decoding the other
+      information about the nested elements.
+    */
+
+    public @NotNull List<String> getNestableTypes(int entity)
+    {
+        int first = entityField(entity, E_FIRST_NESTED);
+        int count = entityField(entity, E_NESTED_COUNT);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            addTypeClassNames(nestedTable + (first + i) * NESTED_SIZE, names);
+        }
+        return List.copyOf(new LinkedHashSet<>(names));
+    }
+
+    private void addTypeClassNames(int nestedRecord, @NotNull List<String> names)
+    {
+        int first = buffer.getInt(nestedRecord + N_FIRST_TYPE);
+        int count = buffer.getInt(nestedRecord + N_TYPE_COUNT);
+        for (int i = 0; i < count; i++) {
+            names.add(requireString(buffer.getInt(nestedTypeTable + 4 * (first + i))));
+        }
+    }
+
+    private int entityField(int entity, int offset)
+    {
+        if (entity < 0 || entity >= entityCount) {
+            throw new IndexOutOfBoundsException("Invalid entity: " + entity);
+        }
+        return buffer.getInt(entityTable + entity * ENTITY_SIZE + offset);
+    }
+
+    private boolean hasFlag(int entity, int flag)
+    {
+        return (entityField(entity, E_FLAGS) & flag) != 0;
+    }
+
+    private @NotNull String requireString(int id)
+    {
+        String s = getString(id);
+        if (s == null) {
+            throw new IllegalStateException("Missing string in model file");
+        }
+        return s;
+    }
+
+    private @Nullable String getString(int id)
+    {
+        if (id < 0) {
+            return null;
+        }
+        if (id >= stringCount) {
+            throw new IllegalStateException("Invalid string number in model file: " + id);
+        }
+        int start = buffer.getInt(stringIndex + 4 * id);
+        int end = buffer.getInt(stringIndex + 4 * (id + 1));
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringData + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+  Create an immutable snapshot of the documented tasks and types. Each documented entity is analyzed exactly once.
+  <p>
+  Extraction has two phases. The first phase creates the entity models, which contain the information needed for
+  navigation and links. The second phase creates the detailed information needed by the documentation page of each
+  entity. The second phase can run while pages are being rendered.
+*/
+
+public class ModelExtractor
+{
+    /**
+      Create a complete snapshot.
+    */
+
+    public static @NotNull RootModel extract(@NotNull AntRoot root)
+    {
+        ModelPipeline pipeline = createPipeline(root, 0, false);
+        pipeline.run();
+        return pipeline.getRoot();
+    }
+
+    /**
+      Create a snapshot whose detailed information is created by running the returned pipeline.
+      @param root The root.
+      @param capacity The maximum number of entities whose detailed information has been created but not used, or
+      zero for no limit.
+      @param releasesDetails True to release detailed information once it has been used, so that memory use is
+      bounded.
+    */
+
+    public static @NotNull ModelPipeline createPipeline(@NotNull AntRoot root, int capacity, boolean releasesDetails)
+    {
+        return new ModelExtractor().extractRoot(root, capacity, releasesDetails);
+    }
+
+    private final @NotNull ModelIndex index = ModelIndex.create();
+    private final @NotNull Map<AntDoc,EntityModel> models = new IdentityHashMap<>();
+    private final @NotNull Set<AntDoc> docs = new LinkedHashSet<>();
+
+    private ModelExtractor()
+    {
+    }
+
+    private @NotNull ModelPipeline extractRoot(@NotNull AntRoot root, int capacity, boolean releasesDetails)
+    {
+        // Detailed information is created for primary entities first, as templates generally render their pages
+        // first.
+
+        docs.addAll(root.getAllPrimary());
+        docs.addAll(root.getAuxiliaryTypes());
+        docs.addAll(root.getAllDocumentedEntities());
+        docs.addAll(root.getAllUncategorized());
+        ModelPipeline pipeline = ModelPipeline.create(new ArrayList<>(docs), capacity, releasesDetails);
+
+        for (AntDoc d : docs) {
+            EntityModel m = d.createModel(index, pipeline);
+            models.put(d, m);
+            index.add(m);
+        }
+
+        pipeline.setRoot(RootModel.create(
+          new ArrayList<>(root.getCategories()),
+          new ArrayList<>(root.getCategoriesExtended()),
+          toModels(root.getAllPrimary()),
+          toModels(root.getPrimaryTasks()),
+          toModels(root.getPrimaryTypes()),
+          toModels(root.getAuxiliaryTypes()),
+          toModels(root.getUncategorizedTasks()),
+          toModels(root.getUncategorizedTypes()),
+          toModels(root.getAllUncategorized()),
+          toModels(root.getAllDocumentedEntities()),
+          toModels(root.getAllDocumentedTypes()),
+          root.getCategoryIndex().map(this::toModel),
+          index));
+        return pipeline;
+    }
+
+    private @NotNull List<EntityModel> toModels(@NotNull Collection<AntDoc> ds)
+    {
+        List<EntityModel> result = new ArrayList<>(ds.size());
+        for (AntDoc d : ds) {
+            result.add(toModel(d));
+        }
+        return result;
+    }
+
+    private @NotNull EntityModel toModel(@NotNull AntDoc d)
+    {
+        EntityModel m = models.get(d);
+        assert m != null;
+        return m;
+    }
+}
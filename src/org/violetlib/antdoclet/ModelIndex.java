@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+  An index of the entity models in a snapshot, by qualified class name. Entity models use the index to resolve
+  references to other entities. The index is populated during extraction and is not modified afterwards.
+*/
+
+public class ModelIndex
+{
+    public static @NotNull ModelIndex create()
+    {
+        return new ModelIndex();
+    }
+
+    private final @NotNull Map<String,EntityModel> entities = new LinkedHashMap<>();
+
+    private ModelIndex()
+    {
+    }
+
+    void add(@NotNull EntityModel m)
+    {
+        entities.put(m.fullClassName(), m);
+    }
+
+    /**
+      Return the entity model for the specified class.
+      @param qualifiedClassName The qualified class name, or null.
+      @return the entity model, or null if the class is not a documented entity.
+    */
+
+    public @Nullable EntityModel get(@Nullable String qualifiedClassName)
+    {
+        return qualifiedClassName != null ? entities.get(qualifiedClassName) : null;
+    }
+
+    /**
+      Return all entity models, in the order in which they were added.
+    */
+
+    public @NotNull Collection<EntityModel> getAll()
+    {
+        return Collections.unmodifiableCollection(entities.values());
+    }
+}
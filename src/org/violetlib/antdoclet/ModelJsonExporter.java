@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+  Write a snapshot of the documented tasks and types as JSON, for use by tools that need the information without
+  running the doclet. The JSON is written as the model is traversed; the detailed information about each entity is
+  obtained (and possibly created) as the entity is written.
+  <p>
+  The top-level object contains the format name and version, the categories, the qualified class names of the
+  entities in each group used by the templates, and an array of entity objects in the order of
+  {@link RootModel#getAllDocumentedEntities}. Descriptions are HTML. Members whose values are null are omitted.
+*/
+
+public class ModelJsonExporter
+{
+    public static final @NotNull String FORMAT = "antdoclet-model";
+    public static final int VERSION = 1;
+
+    /**
+      Write the specified model to a file.
+    */
+
+    public static void export(@NotNull RootModel root, @NotNull Path file)
+      throws IOException
+    {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer w = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            export(root, w);
+        }
+    }
+
+    /**
+      Write the specified model to a writer.
+    */
+
+    public static void export(@NotNull RootModel root, @NotNull Writer w)
+      throws IOException
+    {
+        JsonWriter json = JsonWriter.create(w);
+        json.beginObject();
+        json.name("format").value(FORMAT);
+        json.name("version").value(VERSION);
+        writeStrings(json, "categories", root.getCategories());
+        writeNames(json, "primaryTasks", root.getPrimaryTasks());
+        writeNames(json, "primaryTypes", root.getPrimaryTypes());
+        writeNames(json, "auxiliaryTypes", root.getAuxiliaryTypes());
+        writeNames(json, "uncategorizedTasks", root.getUncategorizedTasks());
+        writeNames(json, "uncategorizedTypes", root.getUncategorizedTypes());
+        json.name("entities").beginArray();
+        for (EntityModel m : root.getAllDocumentedEntities()) {
+            writeEntity(json, m);
+        }
+        json.endArray();
+        json.endObject();
+        json.flush();
+    }
+
+    private static void writeEntity(@NotNull JsonWriter json, @NotNull EntityModel m)
+      throws IOException
+    {
+        EntityDetail d = m.detail();
+        json.beginObject();
+        json.member("antName", m.antName());
+        json.member("className", m.className());
+        json.member("fullClassName", m.fullClassName());
+        json.member("kind", m.isTask() ? "task" : "type");
+        json.member("category", m.antCategory());
+        json.member("isTaskContainer", m.isTaskContainer());
+        json.member("isIgnored", m.isIgnored());
+        json.member("supportsText", m.supportsText());
+        json.member("shortDescription", m.shortDescription());
+        json.member("description", d.description());
+        json.member("nestedTaskDescription", d.nestedTaskDescription());
+        json.member("textDescription", d.textDescription());
+
+        json.name("attributes").beginArray();
+        for (AttributeModel a : d.attributes()) {
+            json.beginObject();
+            json.member("name", a.name());
+            json.member("type", a.type());
+            json.member("types", a.types());
+            json.member("required", a.required() != null);
+            json.member("requiredDescription", a.required());
+            json.member("optionalDescription", a.notRequired());
+            json.member("description", a.description());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("properties").beginArray();
+        for (PropertyModel p : d.properties()) {
+            json.beginObject();
+            json.member("name", p.name());
+            json.member("type", p.type());
+            json.member("description", p.description());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("references").beginArray();
+        for (ReferenceModel r : d.references()) {
+            json.beginObject();
+            json.member("name", r.name());
+            json.member("type", r.type());
+            json.member("description", r.description());
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("namedElements").beginArray();
+        for (NestedElementModel e : d.namedElements()) {
+            writeNestedElement(json, e);
+        }
+        json.endArray();
+
+        json.name("nestedElements").beginArray();
+        for (NestedElementModel e : d.nestedElementTypes()) {
+            writeNestedElement(json, e);
+        }
+        json.endArray();
+
+        writeStrings(json, "nestedClasses", d.nestedClassNames());
+        json.endObject();
+    }
+
+    private static void writeNestedElement(@NotNull JsonWriter json, @NotNull NestedElementModel e)
+      throws IOException
+    {
+        json.beginObject();
+        json.member("name", e.name());
+        json.member("type", e.typeClassName());
+        json.member("typeNames", e.typeNames());
+        json.member("description", e.description());
+        json.endObject();
+    }
+
+    private static void writeStrings(@NotNull JsonWriter json, @NotNull String name, @NotNull List<String> values)
+      throws IOException
+    {
+        json.name(name).beginArray();
+        for (String s : values) {
+            json.value(s);
+        }
+        json.endArray();
+    }
+
+    private static void writeNames(@NotNull JsonWriter json, @NotNull String name, @NotNull List<EntityModel> ms)
+      throws IOException
+    {
+        json.name(name).beginArray();
+        for (EntityModel m : ms) {
+            json.value(m.fullClassName());
+        }
+        json.endArray();
+    }
+}
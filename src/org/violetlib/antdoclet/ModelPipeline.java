@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+  Creates the detailed information about entity models on one thread (the producer) while templates are rendered on
+  other threads (the consumers).
+  <p>
+  The producer must be the only thread that uses the compiler. It creates detailed information in a fixed order,
+  which should be the order in which pages are rendered. A consumer that needs detailed information that has not been
+  created yet causes that information to be created next, regardless of the limit described below, so that
+  rendering in a different order cannot cause a deadlock.
+  <p>
+  The consumers are registered using {@link #createConsumer}, and the use of detailed information is tracked for
+  each consumer. If the pipeline has a capacity, the number of entities whose detailed information has been created
+  but not yet used by a consumer is limited for each consumer, so that the producer does not run far ahead of the
+  slowest consumer. Detailed information is retained once created, unless the pipeline releases details to bound
+  memory use. In that case, the detailed information about an entity is released when every active consumer has
+  used it and none of them is still using it; if it is needed again, it is created again by the producer, without
+  reporting diagnostics again. A consumer is assumed to be using the entity whose detailed information it most
+  recently obtained. Detailed information obtained by a thread that is not a registered consumer is not tracked.
+*/
+
+public class ModelPipeline
+  implements EntityDetailSource
+{
+    /**
+      Create a pipeline.
+      @param docs The entities, in the order in which their detailed information should be created.
+      @param capacity The maximum number of entities whose detailed information has been created but not used by a
+      consumer, or zero for no limit.
+      @param releasesDetails True to release detailed information that every consumer has used. This option has no
+      effect if there is no limit.
+    */
+
+    public static @NotNull ModelPipeline create(@NotNull List<AntDoc> docs, int capacity, boolean releasesDetails)
+    {
+        return new ModelPipeline(docs, capacity, releasesDetails);
+    }
+
+    private final @NotNull List<AntDoc> docs;
+    private final int capacity;
+    private final boolean releasesDetails;
+    private final @NotNull Map<String,Integer> positions = new HashMap<>();
+    private final @NotNull EntityDetail[] details;
+    private final @NotNull BitSet created;
+    private final @NotNull BitSet requested = new BitSet();
+    private final @NotNull List<ConsumerState> consumers = new ArrayList<>();
+    private final @NotNull ThreadLocal<ConsumerState> currentConsumer = new ThreadLocal<>();
+    private @Nullable RootModel root;
+    private int nextIndex;
+    private int createdCount;
+    private int recreatedCount;
+    private boolean isClosed;
+    private @Nullable RuntimeException failure;
+
+    /**
+      The use of detailed information by one consumer.
+    */
+
+    private static class ConsumerState
+    {
+        final @NotNull BitSet used = new BitSet();
+        int usedCount;
+        int current = -1;
+        boolean isActive = true;
+    }
+
+    private ModelPipeline(@NotNull List<AntDoc> docs, int capacity, boolean releasesDetails)
+    {
+        this.docs = List.copyOf(docs);
+        this.capacity = Math.max(0, capacity);
+        this.releasesDetails = releasesDetails && this.capacity > 0;
+        this.details = new EntityDetail[docs.size()];
+        this.created = new BitSet(docs.size());
+        for (int i = 0; i < docs.size(); i++) {
+            positions.put(docs.get(i).getFullClassName(), i);
+        }
+    }
+
+    void setRoot(@NotNull RootModel root)
+    {
+        this.root = root;
+    }
+
+    /**
+      Return the root of the model. The detailed information about the entities is obtained from this pipeline.
+    */
+
+    public @NotNull RootModel getRoot()
+    {
+        assert root != null;
+        return root;
+    }
+
+    /**
+      Register a consumer. The consumer is registered when this method is called, so that the producer takes it into
+      account before it starts running.
+      @param consumer The code to be run by the consumer.
+      @return the code to be run on the consumer thread. When it finishes, the consumer is no longer taken into
+      account.
+    */
+
+    public @NotNull Runnable createConsumer(@NotNull Runnable consumer)
+    {
+        ConsumerState state = new ConsumerState();
+        synchronized (this) {
+            consumers.add(state);
+        }
+        return () -> {
+            currentConsumer.set(state);
+            try {
+                consumer.run();
+            } finally {
+                currentConsumer.remove();
+                removeConsumer(state);
+            }
+        };
+    }
+
+    private synchronized void removeConsumer(@NotNull ConsumerState state)
+    {
+        state.isActive = false;
+        state.current = -1;
+        for (int index = created.nextSetBit(0); index >= 0; index = created.nextSetBit(index + 1)) {
+            releaseIfUnused(index);
+        }
+        notifyAll();
+    }
+
+    /**
+      Return the number of times that detailed information was created again after being released.
+    */
+
+    public synchronized int getRecreatedCount()
+    {
+        return recreatedCount;
+    }
+
+    /**
+      Create the detailed information for all entities. This method must be called on the producer thread. If the
+      pipeline does not release details, it returns when the detailed information has been created for all entities
+      or the pipeline has been closed. Otherwise, it returns when the pipeline has been closed, so that released
+      information can be created again.
+      @throws RuntimeException if the detailed information for an entity could not be created. Consumers waiting
+      for detailed information are released.
+    */
+
+    public void run()
+    {
+        try {
+            for (;;) {
+                int index = next();
+                if (index < 0) {
+                    return;
+                }
+                boolean isRecreated;
+                synchronized (this) {
+                    isRecreated = created.get(index);
+                }
+                AntDoc doc = docs.get(index);
+                EntityDetail detail = isRecreated ? doc.recreateDetail() : doc.createDetail();
+                synchronized (this) {
+                    details[index] = detail;
+                    if (isRecreated) {
+                        recreatedCount++;
+                    } else {
+                        created.set(index);
+                        createdCount++;
+                    }
+                    notifyAll();
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+            throw e;
+        }
+    }
+
+    /**
+      Return the index of the next entity whose detailed information should be created, waiting if the producer is
+      too far ahead of the consumers.
+      @return the index, or -1 if there is nothing more to do.
+    */
+
+    private synchronized int next()
+    {
+        for (;;) {
+            if (isClosed) {
+                return -1;
+            }
+            int index = requested.nextSetBit(0);
+            if (index >= 0) {
+                requested.clear(index);
+                if (details[index] == null) {
+                    return index;
+                }
+                continue;
+            }
+            while (nextIndex < details.length && created.get(nextIndex)) {
+                nextIndex++;
+            }
+            if (nextIndex == details.length) {
+                if (!releasesDetails) {
+                    return -1;
+                }
+            } else if (capacity == 0 || getMaximumUnused() < capacity) {
+                return nextIndex;
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for rendering", e);
+            }
+        }
+    }
+
+    /**
+      Return the number of entities whose detailed information has been created but not used by the slowest active
+      consumer.
+    */
+
+    private int getMaximumUnused()
+    {
+        int result = 0;
+        for (ConsumerState c : consumers) {
+            if (c.isActive) {
+                result = Math.max(result, createdCount - c.usedCount);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized @NotNull EntityDetail getDetail(@NotNull EntityModel m)
+    {
+        Integer position = positions.get(m.fullClassName());
+        if (position == null) {
+            throw new IllegalStateException("Unknown entity: " + m.fullClassName());
+        }
+        int index = position;
+        while (details[index] == null) {
+            if (failure != null) {
+                throw new IllegalStateException("Unable to create model of " + m.fullClassName(), failure);
+            }
+            if (isClosed) {
+                throw new IllegalStateException("Model of " + m.fullClassName() + " requested after rendering");
+            }
+            if (!requested.get(index)) {
+                requested.set(index);
+                notifyAll();
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for model of " + m.fullClassName(), e);
+            }
+        }
+        EntityDetail result = details[index];
+        ConsumerState c = currentConsumer.get();
+        if (c != null) {
+            if (!c.used.get(index)) {
+                c.used.set(index);
+                c.usedCount++;
+                notifyAll();
+            }
+            int previous = c.current;
+            c.current = index;
+            if (previous >= 0 && previous != index) {
+                releaseIfUnused(previous);
+            }
+        }
+        return result;
+    }
+
+    /**
+      Release the detailed information about an entity if every active consumer has used it and none of them is
+      using it.
+    */
+
+    private void releaseIfUnused(int index)
+    {
+        if (!releasesDetails || details[index] == null) {
+            return;
+        }
+        for (ConsumerState c : consumers) {
+            if (c.isActive && (!c.used.get(index) || c.current == index)) {
+                return;
+            }
+        }
+        details[index] = null;
+    }
+
+    /**
+      Stop creating detailed information. This method is called when rendering is complete.
+    */
+
+    public synchronized void close()
+    {
+        isClosed = true;
+        notifyAll();
+    }
+}
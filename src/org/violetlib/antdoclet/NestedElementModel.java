@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+  An immutable description of a nested element supported by a task or type.
+  @param name The display name of a named nested element, or null for an unnamed nested element.
+  @param typeClassName The qualified class name of the (first) element type, or null if the type is unknown.
+  @param typeClassNames The qualified class names of the element types, omitting unknown types.
+  @param typeNames The names of the element types.
+  @param typeLinked HTML that displays the name of the (first) element type, with a link if possible.
+  @param typesLinked HTML that displays the names of the element types, with links if possible.
+  @param description The HTML description of the nested element, or null if none.
+  @param source The location of the method that defines the nested element, or null if it is not in a source file.
+*/
+
+public record NestedElementModel(@Nullable String name,
+                                 @Nullable String typeClassName,
+                                 @NotNull List<String> typeClassNames,
+                                 @NotNull String typeNames,
+                                 @NotNull String typeLinked,
+                                 @NotNull String typesLinked,
+                                 @Nullable String description,
+                                 @Nullable SourceLocation source)
+{
+    public NestedElementModel
+    {
+        typeClassNames = List.copyOf(typeClassNames);
+    }
+}
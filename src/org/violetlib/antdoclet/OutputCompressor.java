@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+  Writes a gzip compressed copy of each generated page, with the suffix {@code .gz}, for use by web servers that
+  serve precompressed files. Pages are compressed by a pool of background threads as they are written.
+  <p>
+  A page whose content is the same as the existing file is not written again, and is not compressed again if its
+  compressed copy is up to date.
+*/
+
+public class OutputCompressor
+{
+    public static @NotNull OutputCompressor create()
+    {
+        return new OutputCompressor();
+    }
+
+    private final @NotNull ExecutorService executor;
+    private final @NotNull LongAdder compressedCount = new LongAdder();
+    private final @NotNull LongAdder unchangedCount = new LongAdder();
+    private final @NotNull LongAdder originalBytes = new LongAdder();
+    private final @NotNull LongAdder compressedBytes = new LongAdder();
+    private final @NotNull AtomicReference<IOException> failure = new AtomicReference<>();
+
+    private OutputCompressor()
+    {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "AntDoclet compressor " + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        executor = Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+      Write a page and arrange for it to be compressed.
+      @param file The page file.
+      @param content The content of the page.
+      @throws IOException if the page could not be written.
+    */
+
+    public void write(@NotNull Path file, byte @NotNull [] content)
+      throws IOException
+    {
+        Path compressedFile = getCompressedFile(file);
+        if (isUnchanged(file, content)) {
+            if (Files.exists(compressedFile)
+              && Files.getLastModifiedTime(compressedFile).compareTo(Files.getLastModifiedTime(file)) >= 0) {
+                unchangedCount.increment();
+                return;
+            }
+        } else {
+            Path parent = file.getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(file, content);
+        }
+        executor.execute(() -> compress(compressedFile, content));
+    }
+
+    private static boolean isUnchanged(@NotNull Path file, byte @NotNull [] content)
+      throws IOException
+    {
+        return Files.isRegularFile(file) && Files.size(file) == content.length
+          && Arrays.equals(Files.readAllBytes(file), content);
+    }
+
+    private static @NotNull Path getCompressedFile(@NotNull Path file)
+    {
+        return file.resolveSibling(file.getFileName() + ".gz");
+    }
+
+    private void compress(@NotNull Path compressedFile, byte @NotNull [] content)
+    {
+        Path temporaryFile = compressedFile.resolveSibling(compressedFile.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = new BestGZIPOutputStream(Files.newOutputStream(temporaryFile))) {
+                out.write(content);
+            }
+            long size = Files.size(temporaryFile);
+            Files.move(temporaryFile, compressedFile, StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+            compressedCount.increment();
+            originalBytes.add(content.length);
+            compressedBytes.add(size);
+        } catch (IOException e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+      Wait for all pending pages to be compressed and release the background threads.
+      @throws IOException if a page could not be compressed.
+    */
+
+    public void close()
+      throws IOException, InterruptedException
+    {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        IOException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    /**
+      Return a description of the size savings, for display.
+    */
+
+    public @NotNull String getSummary()
+    {
+        long original = originalBytes.sum();
+        long compressed = compressedBytes.sum();
+        double saved = original > 0 ? 100.0 * (original - compressed) / original : 0;
+        return String.format("Compressed %d pages (%d unchanged): %,d bytes to %,d bytes (%.1f%% saved)",
+          compressedCount.sum(), unchangedCount.sum(), original, compressed, saved);
+    }
+
+    private static class BestGZIPOutputStream
+      extends GZIPOutputStream
+    {
+        public BestGZIPOutputStream(@NotNull OutputStream out)
+          throws IOException
+        {
+            super(out, 1 << 16);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
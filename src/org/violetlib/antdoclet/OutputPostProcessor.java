@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+  Post-processes the pages written to an output directory. Pages can be minified by collapsing whitespace, and
+  references to static assets can be replaced by references to copies whose names include a hash of their content,
+  so that browsers can cache the assets indefinitely.
+  <p>
+  Assets are the style sheets, images, and fonts that are referenced by pages and already present in the output
+  directory (normally copied there from the template set before the doclet runs). Scripts are not treated as
+  assets, because they may be generated during the run and may load other files by name. Each asset is processed
+  when it is first referenced. A fingerprinted copy is written next to the original, which is retained. When
+  minification is enabled, style sheets are also minified.
+*/
+
+public class OutputPostProcessor
+{
+    public static @NotNull OutputPostProcessor create(@NotNull File outputDir, boolean minify, boolean fingerprint)
+    {
+        return new OutputPostProcessor(outputDir, minify, fingerprint);
+    }
+
+    private static final Set<String> ASSET_EXTENSIONS
+      = Set.of("css", "png", "gif", "jpg", "jpeg", "svg", "ico", "woff", "woff2");
+    private static final String CSS_SPACE_ABSORBING = "{};,>";
+    private static final int HASH_LENGTH = 10;
+
+    private final @NotNull Path outputDir;
+    private final boolean minify;
+    private final boolean fingerprint;
+
+    // The output name of each asset that has been processed, by asset file
+    private final @NotNull Map<Path,String> assets = new ConcurrentHashMap<>();
+
+    private OutputPostProcessor(@NotNull File outputDir, boolean minify, boolean fingerprint)
+    {
+        this.outputDir = outputDir.toPath().toAbsolutePath().normalize();
+        this.minify = minify;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+      Return a writer that post-processes the content of the specified output file. Only HTML files are
+      processed.
+      @param out The writer for the output file.
+      @param fileName The name of the output file, relative to the output directory.
+      @return the writer to use.
+    */
+
+    public @NotNull Writer wrap(@NotNull Writer out, @NotNull String fileName)
+    {
+        String lowerName = fileName.toLowerCase(Locale.ROOT);
+        if (!lowerName.endsWith(".html") && !lowerName.endsWith(".htm")) {
+            return out;
+        }
+        Path page = outputDir.resolve(fileName).normalize();
+        Path pageDir = page.getParent() != null ? page.getParent() : outputDir;
+        return HtmlMinifyingWriter.create(out, minify, url -> rewriteUrl(pageDir, url));
+    }
+
+    private @NotNull String rewriteUrl(@NotNull Path pageDir, @NotNull String url)
+    {
+        if (url.isEmpty() || url.contains(":") || url.startsWith("/") || url.startsWith("#")) {
+            return url;
+        }
+        int suffixStart = indexOfAny(url, "?#");
+        String path = url.substring(0, suffixStart);
+        String extension = getExtension(path);
+        if (extension == null || !ASSET_EXTENSIONS.contains(extension)) {
+            return url;
+        }
+        Path file = pageDir.resolve(path).normalize();
+        if (!file.startsWith(outputDir) || !Files.isRegularFile(file)) {
+            return url;
+        }
+        String outputName;
+        try {
+            outputName = assets.computeIfAbsent(file, this::processAsset);
+        } catch (UncheckedIOException e) {
+            return url;
+        }
+        int nameStart = path.lastIndexOf('/') + 1;
+        return path.substring(0, nameStart) + outputName + url.substring(suffixStart);
+    }
+
+    private @NotNull String processAsset(@NotNull Path file)
+    {
+        try {
+            byte[] content = Files.readAllBytes(file);
+            String name = file.getFileName().toString();
+            if (minify && name.toLowerCase(Locale.ROOT).endsWith(".css")) {
+                content = minifyCss(new String(content, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+                if (!fingerprint) {
+                    Files.write(file, content);
+                }
+            }
+            if (!fingerprint) {
+                return name;
+            }
+            int dot = name.lastIndexOf('.');
+            String outputName = name.substring(0, dot) + "." + hash(content) + name.substring(dot);
+            Path outputFile = file.resolveSibling(outputName);
+            if (!Files.exists(outputFile)) {
+                Files.write(outputFile, content);
+            }
+            return outputName;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+      Minify a style sheet by removing comments and unnecessary whitespace. Quoted strings, the arguments of
+      {@code url()}, and escaped characters are copied unchanged.
+    */
+
+    public static @NotNull String minifyCss(@NotNull String css)
+    {
+        int length = css.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean isSpacePending = false;
+        int i = 0;
+        while (i < length) {
+            char c = css.charAt(i);
+            if (c == '/' && i + 1 < length && css.charAt(i + 1) == '*') {
+                int end = css.indexOf("*/", i + 2);
+                i = end >= 0 ? end + 2 : length;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                isSpacePending = true;
+                i++;
+                continue;
+            }
+
+            char last = sb.isEmpty() ? 0 : sb.charAt(sb.length() - 1);
+            if (isSpacePending && last != 0 && CSS_SPACE_ABSORBING.indexOf(c) < 0
+              && CSS_SPACE_ABSORBING.indexOf(last) < 0 && last != ':') {
+                // A space before a colon may be significant in a selector
+                sb.append(' ');
+            }
+            isSpacePending = false;
+
+            if (c == '"' || c == '\'') {
+                i = copyCssToken(css, i + 1, c, sb.append(c));
+            } else if ((c == 'u' || c == 'U') && css.regionMatches(true, i, "url(", 0, 4)
+              && !isCssNameCharacter(last)) {
+                i = copyCssToken(css, i + 4, ')', sb.append(css, i, i + 4));
+            } else if (c == '\\') {
+                int end = Math.min(length, i + 2);
+                sb.append(css, i, end);
+                i = end;
+            } else {
+                if (c == '}' && last == ';') {
+                    sb.setLength(sb.length() - 1);
+                }
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+      Copy the remainder of a quoted string or {@code url()} argument unchanged.
+      @param css The style sheet.
+      @param start The index of the first character after the opening delimiter.
+      @param terminator The closing delimiter.
+      @param sb The output.
+      @return the index of the first character after the closing delimiter.
+    */
+
+    private static int copyCssToken(@NotNull String css, int start, char terminator, @NotNull StringBuilder sb)
+    {
+        int length = css.length();
+        int i = start;
+        while (i < length) {
+            char c = css.charAt(i++);
+            sb.append(c);
+            if (c == '\\' && i < length) {
+                sb.append(css.charAt(i++));
+            } else if (c == terminator) {
+                break;
+            } else if (terminator == ')' && (c == '"' || c == '\'')) {
+                i = copyCssToken(css, i, c, sb);
+            }
+        }
+        return i;
+    }
+
+    private static boolean isCssNameCharacter(char c)
+    {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+
+    private static @NotNull String hash(byte @NotNull [] content)
+    {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest).substring(0, HASH_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int indexOfAny(@NotNull String s, @NotNull String chars)
+    {
+        for (int i = 0; i < s.length(); i++) {
+            if (chars.indexOf(s.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return s.length();
+    }
+
+    private static @Nullable String getExtension(@NotNull String path)
+    {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        return dot > slash ? path.substring(dot + 1).toLowerCase(Locale.ROOT) : null;
+    }
+}
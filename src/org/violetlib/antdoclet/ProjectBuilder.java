@@ -91,6 +91,7 @@ public class ProjectBuilder
     private final @NotNull SortedSet<AntDoc> uncategorizedTasks = new TreeSet<>();
     private final @NotNull SortedSet<AntDoc> uncategorizedTypes = new TreeSet<>();
     private final @NotNull SortedSet<AntDoc> auxiliaryTypes = new TreeSet<>();
+    private final @NotNull TypeReferenceGraph referenceGraph = TypeReferenceGraph.create();
 
     private ProjectBuilder(@NotNull AntDocCache docCache, @NotNull Set<? extends Element> elements)
     {
@@ -112,7 +113,8 @@ public class ProjectBuilder
           Collections.unmodifiableSet(primaryTypes),
           Collections.unmodifiableSet(auxiliaryTypes),
           Collections.unmodifiableSet(uncategorizedTasks),
-          Collections.unmodifiableSet(uncategorizedTypes)
+          Collections.unmodifiableSet(uncategorizedTypes),
+          referenceGraph
         );
     }
 
@@ -212,20 +214,23 @@ public class ProjectBuilder
 
     private void discoverAuxiliaryTypes()
     {
-        // Enlarge the set of documented elements to include types that are mentioned in the description of some other
-        // documented entity.
+        // The closure is computed using a work list. Each documented entity is processed once, adding its references
+        // to the reference graph. A newly discovered auxiliary type is added to the work list, so that the types it
+        // refers to are also considered.
 
         Set<TypeElement> known = getPrimaryEntities(allPrimary);
-        List<AntDoc> docsToProcess = new ArrayList<>(allPrimary);
+        Deque<AntDoc> docsToProcess = new ArrayDeque<>(allPrimary);
 
         while (!docsToProcess.isEmpty()) {
-            int lastIndex = docsToProcess.size() - 1;
-            AntDoc d = docsToProcess.remove(lastIndex);
-            for (TypeElement nte : d.getAllReferencedTypes()) {
+            AntDoc d = docsToProcess.removeLast();
+            d.addReferences(referenceGraph);
+            for (TypeElement nte : referenceGraph.getReferencedTypes(d.getTypeElement())) {
                 if (!known.contains(nte) && shouldIncludeAuxiliaryElement(nte)) {
                     AntDoc nd = docCache.getOrCreate(nte);
+                    assert nd != null;
                     known.add(nte);
                     auxiliaryTypes.add(nd);
+                    docsToProcess.addLast(nd);
                 }
             }
         }
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+/**
+  The ways in which the documentation of one type can refer to another type.
+  @see TypeReferenceGraph
+*/
+
+public enum ReferenceKind
+{
+    /** The type of an attribute. */
+    ATTRIBUTE,
+    /** The type of a named or unnamed nested element. */
+    NESTED_ELEMENT,
+    /** The type of a global property. */
+    PROPERTY,
+    /** The type of a referenced element. */
+    REFERENCE
+}
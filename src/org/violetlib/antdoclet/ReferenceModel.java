@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+  An immutable description of a referenced element used by a task or type.
+  @param name The ID of the referenced element.
+  @param type The name of the type of the referenced element.
+  @param typeLinked HTML that displays the name of the type of the referenced element, with a link if possible.
+  @param description The HTML description of the reference.
+*/
+
+public record ReferenceModel(@NotNull String name,
+                             @NotNull String type,
+                             @NotNull String typeLinked,
+                             @NotNull String description)
+{
+}
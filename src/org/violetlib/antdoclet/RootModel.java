@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+  An immutable snapshot of the tasks and types being documented. The snapshot does not refer to the compiler or to
+  the analysis caches, so it can be rendered after analysis is complete.
+  <p>
+  The methods used by templates have the same names and meanings as the corresponding methods of {@link AntRoot},
+  except that methods that identify a class using a compiler object accept a qualified class name instead. All lists
+  preserve the iteration order of the corresponding {@link AntRoot} collections.
+*/
+
+public class RootModel
+{
+    public static @NotNull RootModel create(@NotNull List<String> categories,
+                                            @NotNull List<String> extendedCategories,
+                                            @NotNull List<EntityModel> allPrimary,
+                                            @NotNull List<EntityModel> primaryTasks,
+                                            @NotNull List<EntityModel> primaryTypes,
+                                            @NotNull List<EntityModel> auxiliaryTypes,
+                                            @NotNull List<EntityModel> uncategorizedTasks,
+                                            @NotNull List<EntityModel> uncategorizedTypes,
+                                            @NotNull List<EntityModel> allUncategorized,
+                                            @NotNull List<EntityModel> allEntities,
+                                            @NotNull List<EntityModel> allTypes,
+                                            @NotNull CategoryIndex<EntityModel> categoryIndex,
+                                            @NotNull ModelIndex index)
+    {
+        return new RootModel(categories, extendedCategories, allPrimary, primaryTasks, primaryTypes, auxiliaryTypes,
+          uncategorizedTasks, uncategorizedTypes, allUncategorized, allEntities, allTypes, categoryIndex, index);
+    }
+
+    private final @NotNull List<String> categories;
+    private final @NotNull List<String> extendedCategories;
+    private final @NotNull List<EntityModel> allPrimary;
+    private final @NotNull List<EntityModel> primaryTasks;
+    private final @NotNull List<EntityModel> primaryTypes;
+    private final @NotNull List<EntityModel> auxiliaryTypes;
+    private final @NotNull List<EntityModel> uncategorizedTasks;
+    private final @NotNull List<EntityModel> uncategorizedTypes;
+    private final @NotNull List<EntityModel> allUncategorized;
+    private final @NotNull List<EntityModel> allEntities;
+    private final @NotNull List<EntityModel> allTypes;
+    private final @NotNull ModelIndex index;
+    private final @NotNull CategoryIndex<EntityModel> categoryIndex;
+
+    // Index pages are created when first requested, possibly by several template sets at the same time
+    private final @NotNull Map<String,List<IndexPage>> indexPages = new ConcurrentHashMap<>();
+
+    private RootModel(@NotNull List<String> categories,
+                      @NotNull List<String> extendedCategories,
+                      @NotNull List<EntityModel> allPrimary,
+                      @NotNull List<EntityModel> primaryTasks,
+                      @NotNull List<EntityModel> primaryTypes,
+                      @NotNull List<EntityModel> auxiliaryTypes,
+                      @NotNull List<EntityModel> uncategorizedTasks,
+                      @NotNull List<EntityModel> uncategorizedTypes,
+                      @NotNull List<EntityModel> allUncategorized,
+                      @NotNull List<EntityModel> allEntities,
+                      @NotNull List<EntityModel> allTypes,
+                      @NotNull CategoryIndex<EntityModel> categoryIndex,
+                      @NotNull ModelIndex index)
+    {
+        this.categories = List.copyOf(categories);
+        this.extendedCategories = List.copyOf(extendedCategories);
+        this.allPrimary = List.copyOf(allPrimary);
+        this.primaryTasks = List.copyOf(primaryTasks);
+        this.primaryTypes = List.copyOf(primaryTypes);
+        this.auxiliaryTypes = List.copyOf(auxiliaryTypes);
+        this.uncategorizedTasks = List.copyOf(uncategorizedTasks);
+        this.uncategorizedTypes = List.copyOf(uncategorizedTypes);
+        this.allUncategorized = List.copyOf(allUncategorized);
+        this.allEntities = List.copyOf(allEntities);
+        this.allTypes = List.copyOf(allTypes);
+        this.categoryIndex = categoryIndex;
+        this.index = index;
+    }
+
+    /**
+      Return the index of all documented entities.
+    */
+
+    public @NotNull ModelIndex getIndex()
+    {
+        return index;
+    }
+
+    /**
+      Return the names of all explicitly defined categories.
+    */
+
+    public @NotNull List<String> getCategories()
+    {
+        return categories;
+    }
+
+    /**
+      Return the names of all explicitly defined categories and the implicitly defined category containing
+      entities with no defined category, if any.
+    */
+
+    public @NotNull List<String> getCategoriesExtended()
+    {
+        return extendedCategories;
+    }
+
+    /**
+      Return the prefix to apply when creating a title for a member of a category.
+      @param category The category.
+      @return the prefix.
+    */
+
+    public @NotNull String getAntCategoryPrefix(@NotNull String category)
+    {
+        return AntRoot.createAntCategoryPrefix(category);
+    }
+
+    public @NotNull List<EntityModel> getAllDocumentedEntities()
+    {
+        return allEntities;
+    }
+
+    /**
+      Indicate whether the specified class has a documentation page.
+      @param qualifiedClassName The qualified class name.
+    */
+
+    // For template use
+    public boolean isIncluded(@NotNull String qualifiedClassName)
+    {
+        EntityModel m = index.get(qualifiedClassName);
+        return m != null && m.isIncluded();
+    }
+
+    /**
+      Indicate whether the specified class has a documentation page or is not a documented entity.
+      @param qualifiedClassName The qualified class name.
+    */
+
+    // For template use
+    public boolean isIncludedOrForeign(@NotNull String qualifiedClassName)
+    {
+        EntityModel m = index.get(qualifiedClassName);
+        return m == null || m.isIncluded();
+    }
+
+    public @NotNull List<EntityModel> getAllDocumentedTypes()
+    {
+        return allTypes;
+    }
+
+    public @NotNull List<EntityModel> getAllPrimary()
+    {
+        return allPrimary;
+    }
+
+    public @NotNull List<EntityModel> getPrimaryTypes()
+    {
+        return primaryTypes;
+    }
+
+    public @NotNull List<EntityModel> getPrimaryTasks()
+    {
+        return primaryTasks;
+    }
+
+    public @NotNull List<EntityModel> getAllUncategorized()
+    {
+        return allUncategorized;
+    }
+
+    public @NotNull List<EntityModel> getUncategorizedTypes()
+    {
+        return uncategorizedTypes;
+    }
+
+    public @NotNull List<EntityModel> getUncategorizedTasks()
+    {
+        return uncategorizedTasks;
+    }
+
+    public @NotNull List<EntityModel> getAuxiliaryTypes()
+    {
+        return auxiliaryTypes;
+    }
+
+    public int getUncategorizedElementCount()
+    {
+        return allUncategorized.size();
+    }
+
+    public int getPrimaryElementCount()
+    {
+        return allPrimary.size();
+    }
+
+    public @NotNull List<EntityModel> getAllByCategory(@NotNull String category)
+    {
+        if ("all".equals(category)) {
+            return getAllPrimary();
+        }
+
+        if ("none".equals(category)) {
+            return getAllUncategorized();
+        }
+
+        return categoryIndex.getAll(category);
+    }
+
+    public @NotNull List<EntityModel> getTasksByCategory(@NotNull String category)
+    {
+        if ("all".equals(category)) {
+            return getPrimaryTasks();
+        }
+
+        if ("none".equals(category)) {
+            return getUncategorizedTasks();
+        }
+
+        return categoryIndex.getTasks(category);
+    }
+
+    public @NotNull List<EntityModel> getTypesByCategory(@NotNull String category)
+    {
+        // See AntRoot.getTypesByCategory for the special case of "all".
+
+        if ("all".equals(category)) {
+            if (categories.isEmpty()) {
+                return getPrimaryTypes();
+            } else {
+                return getAllDocumentedTypes();
+            }
+        }
+
+        if ("none".equals(category)) {
+            return getUncategorizedTypes();
+        }
+
+        return categoryIndex.getTypes(category);
+    }
+
+    /**
+      Return the pages of the index of a category. The index lists the tasks returned by
+      {@link #getTasksByCategory} followed by the types returned by {@link #getTypesByCategory}.
+      @param category The category, which may be "all" or "none".
+      @param pageSize The maximum number of entries on a page, or zero to put all entries on one page.
+      @return the pages. There is always at least one page.
+    */
+
+    public @NotNull List<IndexPage> getIndexPages(@NotNull String category, int pageSize)
+    {
+        return indexPages.computeIfAbsent(pageSize + ":" + category, k -> createIndexPages(category, pageSize));
+    }
+
+    private @NotNull List<IndexPage> createIndexPages(@NotNull String category, int pageSize)
+    {
+        List<EntityModel> tasks = getTasksByCategory(category);
+        List<EntityModel> types = getTypesByCategory(category);
+        int entryCount = tasks.size() + types.size();
+        if (pageSize <= 0) {
+            pageSize = Math.max(1, entryCount);
+        }
+        int pageCount = Math.max(1, (entryCount + pageSize - 1) / pageSize);
+
+        // The tasks precede the types, and each is sorted separately, so each has its own buckets
+        List<IndexBucket> taskBuckets = createIndexBuckets(tasks, 0, pageSize);
+        List<IndexBucket> typeBuckets = createIndexBuckets(types, tasks.size(), pageSize);
+
+        List<IndexPage> result = new ArrayList<>(pageCount);
+        for (int page = 0; page < pageCount; page++) {
+            int start = page * pageSize;
+            int end = Math.min(entryCount, start + pageSize);
+            List<EntityModel> pageTasks = tasks.subList(Math.min(start, tasks.size()), Math.min(end, tasks.size()));
+            List<EntityModel> pageTypes = types.subList(Math.max(0, start - tasks.size()),
+              Math.max(0, end - tasks.size()));
+            result.add(IndexPage.create(page + 1, pageCount, pageTasks, pageTypes, taskBuckets, typeBuckets));
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+      Divide a sorted list of index entries into buckets by initial letter. The bucket for a letter refers to the
+      page of its first entry.
+      @param entries The entries.
+      @param firstIndex The position in the index of the first entry.
+      @param pageSize The number of entries on each page.
+    */
+
+    private static @NotNull List<IndexBucket> createIndexBuckets(@NotNull List<EntityModel> entries,
+                                                                 int firstIndex,
+                                                                 int pageSize)
+    {
+        Map<String,int[]> buckets = new TreeMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            String name = entries.get(i).antName();
+            int c = name.isEmpty() ? 0 : name.codePointAt(0);
+            String label = Character.isLetter(c) ? Character.toString(c).toUpperCase(Locale.ROOT) : "#";
+            int pageNumber = (firstIndex + i) / pageSize + 1;
+            buckets.computeIfAbsent(label, l -> new int[] { pageNumber, 0 })[1]++;
+        }
+        List<IndexBucket> result = new ArrayList<>(buckets.size());
+        for (Map.Entry<String,int[]> e : buckets.entrySet()) {
+            result.add(new IndexBucket(e.getKey(), e.getValue()[0], e.getValue()[1]));
+        }
+        return List.copyOf(result);
+    }
+}
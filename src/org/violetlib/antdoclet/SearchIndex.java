@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+  A search index of the documented tasks and types, written as a set of JavaScript files that a browser loads on
+  demand. The index covers Ant names, simple class names, attribute names, and the words of the short description.
+  <p>
+  Terms are lower case. Each term is assigned to a shard by its first {@value #SHARD_PREFIX_LENGTH} characters, so
+  that a search loads only the shard for the prefix being typed. A shard contains a prefix tree of the terms in the
+  shard; each term is mapped to its postings, which identify the entities that contain the term and the fields in
+  which it appears. The entities themselves are described in separately loaded chunks of
+  {@value #DOCUMENT_CHUNK_SIZE} entities, so that only the chunks needed to display the results are loaded.
+  <p>
+  The files are written to a {@code search} subdirectory of the output directory:
+  <ul>
+  <li>{@code index.js} lists the shards and the number of entities.</li>
+  <li>{@code shard-KEY.js} contains the prefix tree for a shard.</li>
+  <li>{@code docs-N.js} describes the entities in chunk N.</li>
+  </ul>
+  Each file calls a function of the {@code AntDocSearch} object, which is defined by the client script supplied by
+  the template set. Scripts are used rather than JSON so that the index can be used from local files. The files are
+  written using a {@link VelocityFacade}, so that they are compressed in the same way as the pages produced by
+  templates and use the same character encoding. The documentation page of an entity is assumed to be named using
+  its qualified class name, as in the example templates.
+*/
+
+public class SearchIndex
+{
+    public static final int VERSION = 1;
+    public static final int SHARD_PREFIX_LENGTH = 2;
+    public static final int DOCUMENT_CHUNK_SIZE = 256;
+
+    // The fields in which a term appears
+    public static final int FIELD_ANT_NAME = 1;
+    public static final int FIELD_CLASS_NAME = 2;
+    public static final int FIELD_ATTRIBUTE = 4;
+    public static final int FIELD_TEXT = 8;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern ENTITY = Pattern.compile("&(#x?[0-9a-fA-F]+|[a-z]+);");
+
+    /**
+      Create a search index of the specified model. The index is built when it is first written.
+    */
+
+    public static @NotNull SearchIndex create(@NotNull RootModel root)
+    {
+        return new SearchIndex(root);
+    }
+
+    private final @NotNull RootModel root;
+    private @Nullable List<EntityModel> documents;
+    private @Nullable List<String> summaries;
+
+    // term -> (document -> fields)
+    private final @NotNull SortedMap<String,Map<Integer,Integer>> postings = new TreeMap<>();
+
+    private SearchIndex(@NotNull RootModel root)
+    {
+        this.root = root;
+    }
+
+    /**
+      Write the search index to the {@code search} subdirectory of the output directory of the specified facade.
+    */
+
+    // For template use
+    public void write(@NotNull VelocityFacade velocity)
+      throws IOException
+    {
+        build();
+        List<EntityModel> documents = this.documents;
+        List<String> summaries = this.summaries;
+        assert documents != null;
+        assert summaries != null;
+
+        Map<String,SortedMap<String,Map<Integer,Integer>>> shards = new LinkedHashMap<>();
+        for (Map.Entry<String,Map<Integer,Integer>> e : postings.entrySet()) {
+            String term = e.getKey();
+            String key = term.substring(0, Math.min(SHARD_PREFIX_LENGTH, term.length()));
+            shards.computeIfAbsent(key, k -> new TreeMap<>()).put(term, e.getValue());
+        }
+
+        velocity.write("search/index.js", w -> {
+            JsonWriter json = JsonWriter.create(w);
+            w.write("AntDocSearch.init(");
+            json.beginObject();
+            json.name("version").value(VERSION);
+            json.name("prefixLength").value(SHARD_PREFIX_LENGTH);
+            json.name("chunkSize").value(DOCUMENT_CHUNK_SIZE);
+            json.name("documentCount").value(documents.size());
+            json.name("shards").beginArray();
+            for (String key : shards.keySet()) {
+                json.value(key);
+            }
+            json.endArray();
+            json.endObject();
+            w.write(");\n");
+        });
+
+        for (Map.Entry<String,SortedMap<String,Map<Integer,Integer>>> e : shards.entrySet()) {
+            String key = e.getKey();
+            velocity.write("search/shard-" + getFileKey(key) + ".js", w -> {
+                JsonWriter json = JsonWriter.create(w);
+                w.write("AntDocSearch.addShard(");
+                json.value(key);
+                w.write(",");
+                writeTrie(json, key, e.getValue());
+                w.write(");\n");
+            });
+        }
+
+        for (int n = 0; n * DOCUMENT_CHUNK_SIZE < documents.size(); n++) {
+            int chunk = n;
+            velocity.write("search/docs-" + chunk + ".js", w -> {
+                JsonWriter json = JsonWriter.create(w);
+                w.write("AntDocSearch.addDocuments(" + chunk + ",");
+                json.beginArray();
+                int end = Math.min(documents.size(), (chunk + 1) * DOCUMENT_CHUNK_SIZE);
+                for (int i = chunk * DOCUMENT_CHUNK_SIZE; i < end; i++) {
+                    EntityModel m = documents.get(i);
+                    json.beginArray();
+                    json.value(m.antName());
+                    json.value(m.fullClassName());
+                    json.value(m.isTask() ? "task" : "type");
+                    json.value(m.fullClassName() + ".html");
+                    json.value(summaries.get(i));
+                    json.endArray();
+                }
+                json.endArray();
+                w.write(");\n");
+            });
+        }
+    }
+
+    /**
+      Return the name used in a file name for a shard key. Characters other than ASCII letters and digits are
+      encoded, so that the file name is valid on all platforms and distinct keys have distinct names. The client
+      script uses the same encoding.
+    */
+
+    public static @NotNull String getFileKey(@NotNull String key)
+    {
+        StringBuilder sb = new StringBuilder();
+        key.codePoints().forEach(c -> {
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.appendCodePoint(c);
+            } else {
+                sb.append('_').append(Integer.toHexString(c)).append('_');
+            }
+        });
+        return sb.toString();
+    }
+
+    private synchronized void build()
+    {
+        if (documents != null) {
+            return;
+        }
+
+        List<EntityModel> ds = new ArrayList<>();
+        List<String> ss = new ArrayList<>();
+        for (EntityModel m : root.getAllDocumentedEntities()) {
+            if (!m.isIncluded()) {
+                continue;
+            }
+            int id = ds.size();
+            ds.add(m);
+            String summary = toPlainText(m.shortDescription());
+            ss.add(summary);
+
+            String antName = m.antName().toLowerCase(Locale.ROOT);
+            add(antName, id, FIELD_ANT_NAME);
+            addWords(antName, id, FIELD_ANT_NAME);
+            add(m.className().toLowerCase(Locale.ROOT), id, FIELD_CLASS_NAME);
+            for (AttributeModel a : m.detail().attributes()) {
+                add(a.name().toLowerCase(Locale.ROOT), id, FIELD_ATTRIBUTE);
+            }
+            addWords(summary.toLowerCase(Locale.ROOT), id, FIELD_TEXT);
+        }
+        summaries = ss;
+        documents = ds;
+    }
+
+    private void addWords(@NotNull String s, int document, int field)
+    {
+        Matcher m = WORD.matcher(s);
+        while (m.find()) {
+            String word = m.group();
+            if (word.length() > 1) {
+                add(word, document, field);
+            }
+        }
+    }
+
+    private void add(@NotNull String term, int document, int field)
+    {
+        if (!term.isEmpty()) {
+            postings.computeIfAbsent(term, k -> new LinkedHashMap<>()).merge(document, field, (a, b) -> a | b);
+        }
+    }
+
+    /**
+      Write the prefix tree of the terms in a shard. A node is an object whose optional {@code c} member maps each
+      next character to a child node and whose optional {@code p} member contains the postings of the term that
+      ends at the node, as pairs of entity number and fields. The root node represents the shard key.
+    */
+
+    private static void writeTrie(@NotNull JsonWriter json,
+                                  @NotNull String key,
+                                  @NotNull SortedMap<String,Map<Integer,Integer>> terms)
+      throws IOException
+    {
+        List<String> list = new ArrayList<>(terms.keySet());
+        writeNode(json, list, 0, list.size(), key.length(), terms);
+    }
+
+    // The terms in [start, end) share the prefix of the specified length and are sorted.
+    private static void writeNode(@NotNull JsonWriter json,
+                                  @NotNull List<String> list,
+                                  int start,
+                                  int end,
+                                  int depth,
+                                  @NotNull SortedMap<String,Map<Integer,Integer>> terms)
+      throws IOException
+    {
+        json.beginObject();
+        if (list.get(start).length() == depth) {
+            json.name("p").beginArray();
+            for (Map.Entry<Integer,Integer> e : terms.get(list.get(start)).entrySet()) {
+                json.beginArray().value(e.getKey()).value(e.getValue()).endArray();
+            }
+            json.endArray();
+            start++;
+        }
+        if (start < end) {
+            json.name("c").beginObject();
+            int i = start;
+            while (i < end) {
+                char c = list.get(i).charAt(depth);
+                int j = i + 1;
+                while (j < end && list.get(j).charAt(depth) == c) {
+                    j++;
+                }
+                json.name(String.valueOf(c));
+                writeNode(json, list, i, j, depth + 1, terms);
+                i = j;
+            }
+            json.endObject();
+        }
+        json.endObject();
+    }
+
+    private static @NotNull String toPlainText(@Nullable String html)
+    {
+        if (html == null) {
+            return "";
+        }
+        String s = TAG.matcher(html).replaceAll("");
+        Matcher m = ENTITY.matcher(s);
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            m.appendReplacement(sb, Matcher.quoteReplacement(decodeEntity(m.group(1), m.group())));
+        }
+        m.appendTail(sb);
+        return sb.toString().replaceAll("\\s+", " ").trim();
+    }
+
+    private static @NotNull String decodeEntity(@NotNull String name, @NotNull String original)
+    {
+        try {
+            if (name.startsWith("#x")) {
+                return Character.toString(Integer.parseInt(name.substring(2), 16));
+            }
+            if (name.startsWith("#")) {
+                return Character.toString(Integer.parseInt(name.substring(1)));
+            }
+        } catch (IllegalArgumentException e) {
+            return original;
+        }
+        return switch (name) {
+            case "lt" -> "<";
+            case "gt" -> ">";
+            case "amp" -> "&";
+            case "quot" -> "\"";
+            case "apos" -> "'";
+            case "nbsp" -> " ";
+            default -> original;
+        };
+    }
+}
@@ -0,0 +1,615 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import com.sun.source.doctree.AttributeTree;
+import com.sun.source.doctree.DocTree;
+import com.sun.source.doctree.SnippetTree;
+import com.sun.source.doctree.TextTree;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+  Format the body of a {@code @snippet} tag as HTML.
+  <p>
+  The body is scanned once. As each line is completed, excess indentation is removed, tabs are expanded, markup
+  comments are interpreted, and the line is written with HTML metacharacters escaped. The excess indentation is the
+  indentation of the line containing the closing brace.
+  <p>
+  The supported snippet attributes are {@code lang}, {@code id}, and {@code region}. The supported markup tags are
+  {@code @highlight}, {@code @start}, and {@code @end}. A markup comment may use {@code //}, {@code #}, or
+  {@code <!-- -->} syntax.
+  <p>
+  If the {@code lang} attribute names a language supported by {@link SyntaxHighlighter}, the text is divided into
+  tokens that are written as {@code span} elements with CSS classes. The tokens for a snippet are cached by content,
+  using the cache provided by the content processor.
+*/
+
+public class SnippetFormatter
+{
+    /**
+      Write the HTML for a snippet.
+      @param t The snippet.
+      @param p The content processor that receives the output and reports errors.
+    */
+
+    public static void format(@NotNull SnippetTree t, @NotNull ContentProcessor p)
+    {
+        TextTree body = t.getBody();
+        if (body != null) {
+            String text = body.getBody();
+            if (!text.isEmpty()) {
+                new SnippetFormatter(getAttributes(t), p).format(text);
+            }
+        }
+    }
+
+    public static final int TAB_WIDTH = 8;
+
+    private static final @NotNull Pattern MARKUP_COMMENT
+      = Pattern.compile("(?://|#|<!--)\\s*(@(?:highlight|start|end)\\b.*?)\\s*(?:-->)?\\s*$");
+
+    private static final int BOLD = 0;
+    private static final int ITALIC = 1;
+    private static final int HIGHLIGHTED = 2;
+
+    private static final String[] START_TAGS = { "<b>", "<i>", "<span class=\"highlighted\">" };
+    private static final String[] END_TAGS = { "</b>", "</i>", "</span>" };
+
+    /**
+      A highlight specification from a {@code @highlight} markup tag.
+    */
+
+    private static class Highlight
+    {
+        final @Nullable String substring;
+        final @Nullable Pattern regex;
+        final int type;
+
+        Highlight(@Nullable String substring, @Nullable Pattern regex, int type)
+        {
+            this.substring = substring;
+            this.regex = regex;
+            this.type = type;
+        }
+    }
+
+    /**
+      A region that has been started and not yet ended. A region may carry a highlight that applies to every line in
+      the region.
+    */
+
+    private static class Region
+    {
+        final @NotNull String name;
+        final @Nullable Highlight highlight;
+
+        Region(@NotNull String name, @Nullable Highlight highlight)
+        {
+            this.name = name;
+            this.highlight = highlight;
+        }
+    }
+
+    private final @NotNull ContentProcessor p;
+    private final @Nullable String lang;
+    private final @Nullable String id;
+    private final @Nullable String selectedRegion;
+    private final @Nullable SyntaxHighlighter highlighter;
+    private @Nullable String tokenCacheKey;
+    private @Nullable int[][] cachedTokens;
+    private @Nullable List<int[]> createdTokens;
+    private int lineIndex;
+    private @Nullable int[] lineTokens;
+    private int tokenIndex;
+
+    private final @NotNull StringBuilder lineBuffer = new StringBuilder();
+    private final @NotNull List<Region> openRegions = new ArrayList<>();
+    private final @NotNull List<Highlight> lineHighlights = new ArrayList<>();
+    private final @NotNull List<int[]> ranges = new ArrayList<>();
+    private @Nullable List<Highlight> nextLineHighlights;
+    private int indentation;
+    private @Nullable Region selected;
+    private boolean isSelectedRegionFound;
+    private boolean isLineWritten;
+
+    private SnippetFormatter(@NotNull Map<String,String> attributes, @NotNull ContentProcessor p)
+    {
+        this.p = p;
+        this.lang = attributes.get("lang");
+        this.id = attributes.get("id");
+        this.selectedRegion = attributes.get("region");
+        this.highlighter = SyntaxHighlighter.create(lang);
+    }
+
+    private static @NotNull Map<String,String> getAttributes(@NotNull SnippetTree t)
+    {
+        Map<String,String> result = new HashMap<>();
+        for (DocTree d : t.getAttributes()) {
+            if (d instanceof AttributeTree a) {
+                StringBuilder sb = new StringBuilder();
+                for (DocTree v : a.getValue()) {
+                    if (v instanceof TextTree tt) {
+                        sb.append(tt.getBody());
+                    }
+                }
+                result.put(a.getName().toString(), sb.toString());
+            }
+        }
+        return result;
+    }
+
+    private void format(@NotNull String body)
+    {
+        // The last line contains only the indentation of the closing brace. It is not part of the content.
+
+        int contentEnd = body.length();
+        int lastNewline = body.lastIndexOf('\n');
+        if (isBlank(body, lastNewline + 1, body.length())) {
+            indentation = getColumns(body, lastNewline + 1, body.length());
+            contentEnd = Math.max(lastNewline, 0);
+        }
+
+        if (highlighter != null) {
+            tokenCacheKey = lang + "\n" + (selectedRegion != null ? selectedRegion : "") + "\n" + body;
+            cachedTokens = p.getSnippetTokenCache().get(tokenCacheKey);
+            if (cachedTokens == null) {
+                createdTokens = new ArrayList<>();
+            }
+        }
+
+        writeStart();
+        int start = 0;
+        while (start < contentEnd) {
+            int end = body.indexOf('\n', start);
+            if (end < 0 || end > contentEnd) {
+                end = contentEnd;
+            }
+            processLine(body, start, end);
+            start = end + 1;
+        }
+        p.writeHTML("</pre>");
+
+        if (tokenCacheKey != null && createdTokens != null) {
+            p.getSnippetTokenCache().put(tokenCacheKey, createdTokens.toArray(new int[0][]));
+        }
+
+        if (selectedRegion != null && !isSelectedRegionFound) {
+            p.error("Snippet region not found: " + selectedRegion);
+        }
+    }
+
+    private void writeStart()
+    {
+        p.writeHTML("<pre class=\"snippet\"");
+        if (id != null) {
+            writeAttribute("id", id);
+        }
+        if (lang != null) {
+            writeAttribute("data-lang", lang);
+        }
+        p.writeHTML(">");
+    }
+
+    private void writeAttribute(@NotNull String name, @NotNull String value)
+    {
+        p.writeHTML(" " + name + "=\"" + HtmlEscapingWriter.escape(value).replace("\"", "&quot;") + "\"");
+    }
+
+    /**
+      Process one line of the body. The excess indentation is removed and tabs are expanded as the line is copied
+      into the line buffer.
+    */
+
+    private void processLine(@NotNull String body, int start, int end)
+    {
+        if (end > start && body.charAt(end - 1) == '\r') {
+            end--;
+        }
+
+        StringBuilder sb = lineBuffer;
+        sb.setLength(0);
+        int column = 0;
+        int i = start;
+
+        // Skip the excess indentation. A tab that extends past the excess indentation contributes spaces.
+        while (i < end && column < indentation) {
+            char c = body.charAt(i);
+            if (c == ' ') {
+                column++;
+            } else if (c == '\t') {
+                int next = nextTabStop(column);
+                if (next > indentation) {
+                    sb.append(" ".repeat(next - indentation));
+                }
+                column = next;
+            } else {
+                break;
+            }
+            i++;
+        }
+
+        // Copy the rest of the line, expanding tabs. Tab stops are based on the column in the source.
+        for (; i < end; i++) {
+            char c = body.charAt(i);
+            if (c == '\t') {
+                int next = nextTabStop(column);
+                while (column < next) {
+                    sb.append(' ');
+                    column++;
+                }
+            } else {
+                sb.append(c);
+                column++;
+            }
+        }
+
+        String line = sb.toString();
+
+        List<Highlight> pending = nextLineHighlights;
+        nextLineHighlights = null;
+        lineHighlights.clear();
+        if (pending != null) {
+            lineHighlights.addAll(pending);
+        }
+
+        for (Region r : openRegions) {
+            if (r.highlight != null) {
+                lineHighlights.add(r.highlight);
+            }
+        }
+
+        // A line that starts or ends the selected region is part of the region.
+        boolean wasInSelectedRegion = isInSelectedRegion();
+        if (line.indexOf('@') >= 0) {
+            Matcher m = MARKUP_COMMENT.matcher(line);
+            if (m.find()) {
+                String markup = m.group(1);
+                String content = stripTrailing(line, m.start());
+                boolean appliesToNextLine = markup.endsWith(":");
+                if (appliesToNextLine) {
+                    markup = markup.substring(0, markup.length() - 1);
+                }
+                List<Highlight> hs = processMarkup(markup);
+                if (appliesToNextLine) {
+                    nextLineHighlights = hs;
+                } else {
+                    lineHighlights.addAll(hs);
+                }
+                if (content.isBlank()) {
+                    return;
+                }
+                line = content;
+            }
+        }
+
+        if (!wasInSelectedRegion && !isInSelectedRegion()) {
+            return;
+        }
+
+        if (isLineWritten) {
+            p.writeHTML("\n");
+        }
+        isLineWritten = true;
+        writeLine(line);
+    }
+
+    private boolean isInSelectedRegion()
+    {
+        return selectedRegion == null || selected != null;
+    }
+
+    /**
+      Interpret the markup tags in a markup comment.
+      @return the highlights that apply to the current (or next) line.
+    */
+
+    private @NotNull List<Highlight> processMarkup(@NotNull String markup)
+    {
+        List<Highlight> result = new ArrayList<>();
+        int pos = 0;
+        int len = markup.length();
+        while (pos < len) {
+            pos = skipSpaces(markup, pos);
+            if (pos >= len || markup.charAt(pos) != '@') {
+                p.error("Invalid snippet markup: " + markup);
+                break;
+            }
+            int nameStart = pos + 1;
+            pos = nameStart;
+            while (pos < len && !Character.isWhitespace(markup.charAt(pos))) {
+                pos++;
+            }
+            String tagName = markup.substring(nameStart, pos);
+            Map<String,String> attributes = new HashMap<>();
+            pos = parseMarkupAttributes(markup, pos, attributes);
+            processMarkupTag(tagName, attributes, result);
+        }
+        return result;
+    }
+
+    private void processMarkupTag(@NotNull String tagName,
+                                  @NotNull Map<String,String> attributes,
+                                  @NotNull List<Highlight> result)
+    {
+        switch (tagName) {
+            case "highlight" -> {
+                Highlight h = createHighlight(attributes);
+                if (h != null) {
+                    String regionName = attributes.get("region");
+                    if (regionName != null) {
+                        openRegions.add(new Region(regionName, h));
+                    }
+                    result.add(h);
+                }
+            }
+            case "start" -> {
+                String regionName = attributes.get("region");
+                if (regionName == null || regionName.isEmpty()) {
+                    p.error("Snippet @start requires a region name");
+                    return;
+                }
+                Region r = new Region(regionName, null);
+                if (regionName.equals(selectedRegion) && !isSelectedRegionFound) {
+                    selected = r;
+                    isSelectedRegionFound = true;
+                }
+                openRegions.add(r);
+            }
+            case "end" -> {
+                String regionName = attributes.get("region");
+                int index = findOpenRegion(regionName);
+                if (index < 0) {
+                    p.error(regionName != null
+                      ? "Snippet @end for unknown region: " + regionName
+                      : "Snippet @end without a matching region");
+                    return;
+                }
+                Region r = openRegions.remove(index);
+                if (r == selected) {
+                    selected = null;
+                }
+            }
+            default -> p.error("Unsupported snippet markup tag: @" + tagName);
+        }
+    }
+
+    private int findOpenRegion(@Nullable String regionName)
+    {
+        for (int i = openRegions.size() - 1; i >= 0; i--) {
+            if (regionName == null || regionName.isEmpty() || openRegions.get(i).name.equals(regionName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private @Nullable Highlight createHighlight(@NotNull Map<String,String> attributes)
+    {
+        String typeName = attributes.getOrDefault("type", "bold");
+        int type;
+        switch (typeName) {
+            case "bold" -> type = BOLD;
+            case "italic" -> type = ITALIC;
+            case "highlighted" -> type = HIGHLIGHTED;
+            default -> {
+                p.error("Unsupported snippet highlight type: " + typeName);
+                return null;
+            }
+        }
+
+        String substring = attributes.get("substring");
+        String regex = attributes.get("regex");
+        Pattern pattern = null;
+        if (regex != null) {
+            try {
+                pattern = Pattern.compile(regex);
+            } catch (PatternSyntaxException ex) {
+                p.error("Invalid snippet highlight regex: " + regex);
+                return null;
+            }
+        }
+        return new Highlight(substring, pattern, type);
+    }
+
+    /**
+      Parse markup attributes of the form {@code name}, {@code name=value}, {@code name='value'}, or
+      {@code name="value"}, stopping at the next markup tag.
+      @return the position following the attributes.
+    */
+
+    private int parseMarkupAttributes(@NotNull String s, int pos, @NotNull Map<String,String> attributes)
+    {
+        int len = s.length();
+        for (;;) {
+            pos = skipSpaces(s, pos);
+            if (pos >= len || s.charAt(pos) == '@') {
+                return pos;
+            }
+            int nameStart = pos;
+            while (pos < len && s.charAt(pos) != '=' && !Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+            String name = s.substring(nameStart, pos);
+            pos = skipSpaces(s, pos);
+            if (pos >= len || s.charAt(pos) != '=') {
+                attributes.put(name, "");
+                continue;
+            }
+            pos = skipSpaces(s, pos + 1);
+            if (pos < len && (s.charAt(pos) == '"' || s.charAt(pos) == '\'')) {
+                char quote = s.charAt(pos);
+                int close = s.indexOf(quote, pos + 1);
+                if (close < 0) {
+                    close = len;
+                }
+                attributes.put(name, s.substring(pos + 1, close));
+                pos = Math.min(close + 1, len);
+            } else {
+                int valueStart = pos;
+                while (pos < len && !Character.isWhitespace(s.charAt(pos))) {
+                    pos++;
+                }
+                attributes.put(name, s.substring(valueStart, pos));
+            }
+        }
+    }
+
+    /**
+      Write a line of output, applying the highlights that apply to the line.
+    */
+
+    private void writeLine(@NotNull String line)
+    {
+        lineTokens = getLineTokens(line);
+        tokenIndex = 0;
+
+        if (lineHighlights.isEmpty()) {
+            writeSegment(line, 0, line.length());
+            return;
+        }
+
+        List<int[]> rs = ranges;
+        rs.clear();
+        for (Highlight h : lineHighlights) {
+            if (h.substring != null) {
+                if (!h.substring.isEmpty()) {
+                    int index = line.indexOf(h.substring);
+                    while (index >= 0) {
+                        rs.add(new int[] { index, index + h.substring.length(), h.type });
+                        index = line.indexOf(h.substring, index + h.substring.length());
+                    }
+                }
+            } else if (h.regex != null) {
+                Matcher m = h.regex.matcher(line);
+                while (m.find()) {
+                    if (m.end() > m.start()) {
+                        rs.add(new int[] { m.start(), m.end(), h.type });
+                    }
+                }
+            } else if (!line.isEmpty()) {
+                rs.add(new int[] { 0, line.length(), h.type });
+            }
+        }
+
+        // Overlapping ranges cannot be represented by properly nested elements. The earliest range wins.
+        rs.sort((r1, r2) -> r1[0] != r2[0] ? Integer.compare(r1[0], r2[0]) : Integer.compare(r2[1], r1[1]));
+        int pos = 0;
+        for (int[] r : rs) {
+            if (r[0] < pos) {
+                continue;
+            }
+            writeSegment(line, pos, r[0]);
+            p.writeHTML(START_TAGS[r[2]]);
+            writeSegment(line, r[0], r[1]);
+            p.writeHTML(END_TAGS[r[2]]);
+            pos = r[1];
+        }
+        writeSegment(line, pos, line.length());
+    }
+
+    private @Nullable int[] getLineTokens(@NotNull String line)
+    {
+        int index = lineIndex++;
+        if (cachedTokens != null) {
+            return index < cachedTokens.length ? cachedTokens[index] : null;
+        }
+        if (highlighter != null && createdTokens != null) {
+            int[] tokens = highlighter.tokenize(line);
+            createdTokens.add(tokens);
+            return tokens;
+        }
+        return null;
+    }
+
+    /**
+      Write a portion of the current line. Segments are written in order. Tokens that cross the segment boundaries
+      are split, so that the token elements nest properly within any highlight elements.
+    */
+
+    private void writeSegment(@NotNull String line, int start, int end)
+    {
+        int[] tokens = lineTokens;
+        if (tokens == null) {
+            if (end > start) {
+                p.writeEscaped(line, start, end);
+            }
+            return;
+        }
+
+        int pos = start;
+        while (pos < end) {
+            while (tokenIndex < tokens.length && tokens[tokenIndex + 1] <= pos) {
+                tokenIndex += 3;
+            }
+            if (tokenIndex >= tokens.length || tokens[tokenIndex] >= end) {
+                p.writeEscaped(line, pos, end);
+                return;
+            }
+            int tokenStart = Math.max(tokens[tokenIndex], pos);
+            int tokenEnd = Math.min(tokens[tokenIndex + 1], end);
+            if (tokenStart > pos) {
+                p.writeEscaped(line, pos, tokenStart);
+            }
+            p.writeHTML("<span class=\"" + SyntaxHighlighter.getCssClass(tokens[tokenIndex + 2]) + "\">");
+            p.writeEscaped(line, tokenStart, tokenEnd);
+            p.writeHTML("</span>");
+            pos = tokenEnd;
+        }
+    }
+
+    private static int nextTabStop(int column)
+    {
+        return (column / TAB_WIDTH + 1) * TAB_WIDTH;
+    }
+
+    private static boolean isBlank(@NotNull String s, int start, int end)
+    {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c != ' ' && c != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getColumns(@NotNull String s, int start, int end)
+    {
+        int column = 0;
+        for (int i = start; i < end; i++) {
+            column = s.charAt(i) == '\t' ? nextTabStop(column) : column + 1;
+        }
+        return column;
+    }
+
+    private static @NotNull String stripTrailing(@NotNull String s, int end)
+    {
+        while (end > 0 && Character.isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        return s.substring(0, end);
+    }
+
+    private static int skipSpaces(@NotNull String s, int pos)
+    {
+        while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+  Cache the tokens produced by {@link SyntaxHighlighter} for snippets, so that a snippet that appears in multiple
+  places is tokenized once.
+  <p>
+  The cache is limited to an approximate size, which includes the size of the keys. When the limit is exceeded, the
+  least recently used entries are evicted. The cache may be used concurrently.
+*/
+
+public class SnippetTokenCache
+{
+    /**
+      The default maximum size of the cache, in bytes.
+    */
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 4L * 1024 * 1024;
+
+    /**
+      Create a cache.
+      @param maximumSize The maximum approximate size of the cache, in bytes.
+    */
+
+    public static @NotNull SnippetTokenCache create(long maximumSize)
+    {
+        return new SnippetTokenCache(maximumSize);
+    }
+
+    private final long maximumSize;
+    private final @NotNull Map<String,int[][]> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private final @NotNull CacheStatistics statistics = CacheStatistics.create("Snippet tokens", true);
+
+    private SnippetTokenCache(long maximumSize)
+    {
+        this.maximumSize = Math.max(0, maximumSize);
+    }
+
+    /**
+      Return the cached tokens for a snippet.
+      @param key The cache key, which must identify the snippet content and everything that affects which lines are
+      tokenized.
+      @return the tokens for each line, or null if none are cached.
+    */
+
+    public synchronized @Nullable int[][] get(@NotNull String key)
+    {
+        int[][] tokens = cache.get(key);
+        if (tokens != null) {
+            statistics.recordHit();
+        } else {
+            statistics.recordMiss();
+        }
+        return tokens;
+    }
+
+    /**
+      Cache the tokens for a snippet. The tokens are not cached if they would exceed the limit by themselves.
+    */
+
+    public synchronized void put(@NotNull String key, @NotNull int[][] tokens)
+    {
+        long entrySize = getSize(key, tokens);
+        if (entrySize > maximumSize) {
+            return;
+        }
+        int[][] old = cache.put(key, tokens);
+        if (old != null) {
+            size -= getSize(key, old);
+            statistics.recordRemoval(getSize(key, old));
+        }
+        size += entrySize;
+        statistics.recordEntry(entrySize);
+
+        Iterator<Map.Entry<String,int[][]>> it = cache.entrySet().iterator();
+        while (size > maximumSize && it.hasNext()) {
+            Map.Entry<String,int[][]> eldest = it.next();
+            long eldestSize = getSize(eldest.getKey(), eldest.getValue());
+            it.remove();
+            size -= eldestSize;
+            statistics.recordRemoval(eldestSize);
+        }
+    }
+
+    public @NotNull CacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    private static long getSize(@NotNull String key, @NotNull int[][] tokens)
+    {
+        long size = 2L * key.length();
+        for (int[] lineTokens : tokens) {
+            size += 4L * lineTokens.length;
+        }
+        return size;
+    }
+}
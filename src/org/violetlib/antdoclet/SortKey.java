@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.text.CollationKey;
+import java.text.Collator;
+
+/**
+  A precomputed key for ordering documented entities by name. Entities are ordered by name, ignoring case or using a
+  locale specific collator. Entities with equal names are ordered by qualified class name, so that the order is total
+  and does not depend on the order in which entities are discovered.
+*/
+
+public final class SortKey
+  implements Comparable<SortKey>
+{
+    /**
+      Create a sort key.
+      @param name The name used for ordering.
+      @param qualifiedName The qualified class name, used to order entities with equal names.
+      @param collator The collator to use for ordering names, or null to order names ignoring case.
+    */
+
+    public static @NotNull SortKey create(@NotNull String name,
+                                          @NotNull String qualifiedName,
+                                          @Nullable Collator collator)
+    {
+        CollationKey collationKey = collator != null ? collator.getCollationKey(name) : null;
+        String foldedName = collator == null ? fold(name) : null;
+        return new SortKey(foldedName, collationKey, qualifiedName);
+    }
+
+    /**
+      Fold the case of a string so that a simple comparison of folded strings produces the same result as
+      {@link String#compareToIgnoreCase}.
+    */
+
+    private static @NotNull String fold(@NotNull String s)
+    {
+        int len = s.length();
+        char[] cs = new char[len];
+        for (int i = 0; i < len; i++) {
+            cs[i] = Character.toLowerCase(Character.toUpperCase(s.charAt(i)));
+        }
+        return new String(cs);
+    }
+
+    private final @Nullable String foldedName;
+    private final @Nullable CollationKey collationKey;
+    private final @NotNull String qualifiedName;
+
+    private SortKey(@Nullable String foldedName, @Nullable CollationKey collationKey, @NotNull String qualifiedName)
+    {
+        this.foldedName = foldedName;
+        this.collationKey = collationKey;
+        this.qualifiedName = qualifiedName;
+    }
+
+    @Override
+    public int compareTo(@NotNull SortKey o)
+    {
+        int result;
+        if (collationKey != null && o.collationKey != null) {
+            result = collationKey.compareTo(o.collationKey);
+        } else {
+            assert foldedName != null && o.foldedName != null;
+            result = foldedName.compareTo(o.foldedName);
+        }
+        return result != 0 ? result : qualifiedName.compareTo(o.qualifiedName);
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.Charset;
+
+/**
+  The location of a declaration in a source file.
+  @param file The path of the source file.
+  @param className The qualified name of the top level class declared by the source file. Each source file is
+  identified by the name of one of its top level classes, which is the class that encloses the declaration.
+  @param line The line number of the start of the declaration, starting with one.
+  @param charset The charset used by the compiler to decode the source file.
+*/
+
+public record SourceLocation(@NotNull String file,
+                             @NotNull String className,
+                             int line,
+                             @NotNull Charset charset)
+{
+}
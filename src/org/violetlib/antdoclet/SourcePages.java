@@ -0,0 +1,287 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+  Pages that display the source files that define the attributes and nested elements of the documented tasks and
+  types. Each line of a source page is an anchor, so that the documentation of an attribute or nested element can
+  link to the method that defines it.
+  <p>
+  The pages are written to a {@code source} subdirectory of the output directory. Each page is named using the
+  qualified name of a top level class declared by the source file. The documentation page of an entity is assumed
+  to be in the output directory, as in the example templates.
+  <p>
+  Each source file is read once and is written as it is decoded. Source files are decoded using the charset used by
+  the compiler, which is determined by the {@code -encoding} option. The charset is recorded in the model when the
+  model is extracted, so that the source files are read without using the compiler while pages are rendered. The
+  pages are written using a {@link VelocityFacade}, so that they are post-processed and compressed in the same way
+  as the pages produced by templates. The line numbers used as link targets are obtained from the model, which
+  obtains them from a {@link SourcePositionIndex}.
+*/
+
+public class SourcePages
+{
+    public static final String DIRECTORY = "source";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+      Create the source pages for the specified model. The source files are identified when the pages are first
+      written.
+      @param root The model.
+    */
+
+    public static @NotNull SourcePages create(@NotNull RootModel root)
+    {
+        return new SourcePages(root);
+    }
+
+    private final @NotNull RootModel root;
+
+    // source file -> charset and page names
+    private @Nullable Map<String,SourceFile> pages;
+
+    /**
+      A source file for which pages are written.
+      @param charset The charset used to decode the source file.
+      @param classNames The names of the top level classes that identify the pages.
+    */
+
+    private record SourceFile(@NotNull Charset charset, @NotNull Set<String> classNames)
+    {
+    }
+
+    private SourcePages(@NotNull RootModel root)
+    {
+        this.root = root;
+    }
+
+    /**
+      Return the link to the definition of an attribute.
+      @return the relative URL, or null if the attribute was not defined in a source file.
+    */
+
+    // For template use
+    public @Nullable String getAttributeLink(@NotNull AttributeModel a)
+    {
+        return getLink(a.source());
+    }
+
+    /**
+      Return the link to the definition of a nested element.
+      @return the relative URL, or null if the nested element was not defined in a source file.
+    */
+
+    // For template use
+    public @Nullable String getNestedElementLink(@NotNull NestedElementModel e)
+    {
+        return getLink(e.source());
+    }
+
+    private static @Nullable String getLink(@Nullable SourceLocation location)
+    {
+        if (location == null) {
+            return null;
+        }
+        String page = getPageName(location.className());
+        return location.line() > 0 ? page + "#L" + location.line() : page;
+    }
+
+    /**
+      Write the source pages to the {@code source} subdirectory of the output directory of the specified facade.
+    */
+
+    // For template use
+    public void write(@NotNull VelocityFacade velocity)
+      throws IOException
+    {
+        Map<String,SourceFile> ps = build();
+        for (Map.Entry<String,SourceFile> e : ps.entrySet()) {
+            Path source = Path.of(e.getKey());
+            Charset charset = e.getValue().charset();
+            Set<String> classNames = e.getValue().classNames();
+            if (classNames.size() == 1) {
+                velocity.write(getPageName(classNames.iterator().next()), w -> writePage(source, charset, w));
+                continue;
+            }
+
+            // A source file that declares several top level classes is read once
+            StringWriter sw = new StringWriter();
+            writePage(source, charset, sw);
+            String content = sw.toString();
+            for (String className : classNames) {
+                velocity.write(getPageName(className), w -> w.write(content));
+            }
+        }
+    }
+
+    private static @NotNull String getPageName(@NotNull String className)
+    {
+        return DIRECTORY + "/" + className + ".html";
+    }
+
+    private synchronized @NotNull Map<String,SourceFile> build()
+    {
+        if (pages != null) {
+            return pages;
+        }
+
+        List<SourceLocation> locations = new ArrayList<>();
+        for (EntityModel m : root.getAllDocumentedEntities()) {
+            if (!m.isIncluded()) {
+                continue;
+            }
+            EntityDetail d = m.detail();
+            for (AttributeModel a : d.attributes()) {
+                locations.add(a.source());
+            }
+            for (NestedElementModel e : d.namedElements()) {
+                locations.add(e.source());
+            }
+            for (NestedElementModel e : d.nestedElementTypes()) {
+                locations.add(e.source());
+            }
+        }
+
+        Map<String,SourceFile> result = new TreeMap<>();
+        for (SourceLocation location : locations) {
+            if (location != null) {
+                result.computeIfAbsent(location.file(), k -> new SourceFile(location.charset(), new LinkedHashSet<>()))
+                  .classNames().add(location.className());
+            }
+        }
+        pages = result;
+        return result;
+    }
+
+    private static void writePage(@NotNull Path source, @NotNull Charset charset, @NotNull Writer w)
+      throws IOException
+    {
+        try (Reader r = new InputStreamReader(Files.newInputStream(source), charset)) {
+            w.write("<!DOCTYPE html>\n<html>\n<head>\n");
+
+            // The page is written using the same encoding as the pages produced by templates
+            w.write("  <meta charset=\"" + Charset.defaultCharset().name() + "\"/>\n");
+            w.write("  <title>");
+            w.write(HtmlEscapingWriter.escape(source.getFileName().toString()));
+            w.write("</title>\n");
+            w.write("  <link rel=\"stylesheet\" type=\"text/css\" href=\"../style.css\"/>\n");
+            w.write("</head>\n<body class=\"source\">\n<pre class=\"source\">\n");
+
+            CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+            LineWriter lines = new LineWriter(w);
+            while (r.read(chars) >= 0) {
+                lines.write(chars.flip());
+                chars.clear();
+            }
+            lines.close();
+
+            w.write("</pre>\n</body>\n</html>\n");
+        }
+    }
+
+    /**
+      Write source text as HTML, with each line in an element whose ID identifies the line. A line may be terminated
+      by CR, LF, or CR LF. The text of each line is escaped in a single pass and written in bulk.
+    */
+
+    private static class LineWriter
+    {
+        private final @NotNull Writer w;
+        private final @NotNull HtmlEscapingWriter text;
+        private int line = 1;
+        private boolean isLineOpen;
+        private boolean afterCR;
+
+        public LineWriter(@NotNull Writer w)
+        {
+            this.w = w;
+            this.text = HtmlEscapingWriter.create(w);
+        }
+
+        public void write(@NotNull CharBuffer chars)
+          throws IOException
+        {
+            char[] a = chars.array();
+            int end = chars.arrayOffset() + chars.limit();
+            int i = chars.arrayOffset() + chars.position();
+            while (i < end) {
+                if (a[i] == '\n' && afterCR) {
+                    afterCR = false;
+                    i++;
+                    continue;
+                }
+                afterCR = false;
+                if (!isLineOpen) {
+                    startLine();
+                }
+                int start = i;
+                while (i < end && a[i] != '\r' && a[i] != '\n') {
+                    i++;
+                }
+                if (i > start) {
+                    text.write(a, start, i - start);
+                }
+                if (i < end) {
+                    afterCR = a[i] == '\r';
+                    endLine();
+                    i++;
+                }
+            }
+            chars.position(chars.limit());
+        }
+
+        public void close()
+          throws IOException
+        {
+            if (isLineOpen) {
+                endLine();
+            }
+        }
+
+        private void startLine()
+          throws IOException
+        {
+            String number = Integer.toString(line);
+            w.write("<span class=\"line\" id=\"L");
+            w.write(number);
+            w.write("\"><span class=\"lineno\">");
+            w.write(number);
+            w.write("</span>");
+            isLineOpen = true;
+        }
+
+        private void endLine()
+          throws IOException
+        {
+            w.write("</span>\n");
+            isLineOpen = false;
+            line++;
+        }
+    }
+}
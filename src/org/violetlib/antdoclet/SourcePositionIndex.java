@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.TreePath;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+  Find the source positions of declarations. The positions of all classes and members declared in a compilation unit
+  are found together, the first time any of them is requested, so that finding the position of an element does not
+  require searching the compilation unit for it.
+  <p>
+  The index also assigns each indexed declaration a small integer identifier. The identifiers are dense, so that
+  they can be used to index a bit set or an array in place of the element.
+*/
+
+public class SourcePositionIndex
+{
+    public static @NotNull SourcePositionIndex create(@NotNull DocTrees docTrees)
+    {
+        return new SourcePositionIndex(docTrees);
+    }
+
+    private final @NotNull DocTrees docTrees;
+    private final @NotNull Map<TypeElement,Optional<CompilationUnitPositions>> byTopLevelType = new HashMap<>();
+    private final @NotNull Map<CompilationUnitTree,CompilationUnitPositions> byUnit = new HashMap<>();
+    private final @NotNull CacheStatistics statistics = CacheStatistics.create("Source position", false);
+    private int nextId;
+
+    private SourcePositionIndex(@NotNull DocTrees docTrees)
+    {
+        this.docTrees = docTrees;
+    }
+
+    /**
+      Return the positions of the declarations in the compilation unit that declares the specified element.
+      @return the positions, or null if the element was not declared in a source file.
+    */
+
+    public @Nullable CompilationUnitPositions getPositions(@NotNull Element e)
+    {
+        TypeElement top = getTopLevelType(e);
+        if (top == null) {
+            return null;
+        }
+        Optional<CompilationUnitPositions> result = byTopLevelType.get(top);
+        if (result != null) {
+            statistics.recordHit();
+            return result.orElse(null);
+        }
+        statistics.recordMiss();
+        result = Optional.ofNullable(createPositions(top));
+        byTopLevelType.put(top, result);
+        return result.orElse(null);
+    }
+
+    private @Nullable CompilationUnitPositions createPositions(@NotNull TypeElement top)
+    {
+        TreePath path = docTrees.getPath(top);
+        if (path == null) {
+            return null;
+        }
+        CompilationUnitTree cu = path.getCompilationUnit();
+        CompilationUnitPositions positions = byUnit.get(cu);
+        if (positions == null) {
+            positions = CompilationUnitPositions.create(cu, docTrees, nextId);
+            nextId += positions.getElementCount();
+            byUnit.put(cu, positions);
+            statistics.recordEntry(0);
+        }
+        return positions;
+    }
+
+    /**
+      Return the path to the declaration of the specified element.
+      @return the path, or null if the element is not a class or member declared in a source file.
+    */
+
+    public @Nullable TreePath getPath(@NotNull Element e)
+    {
+        CompilationUnitPositions positions = getPositions(e);
+        return positions != null ? positions.getPath(e) : null;
+    }
+
+    /**
+      Return the identifier assigned to the declaration of the specified element. Identifiers are assigned to the
+      classes and members of a compilation unit when the compilation unit is indexed.
+      @return the identifier, or -1 if the element is not a class or member declared in a source file.
+    */
+
+    public int getId(@NotNull Element e)
+    {
+        CompilationUnitPositions positions = getPositions(e);
+        return positions != null ? positions.getId(e) : -1;
+    }
+
+    /**
+      Return the line number of the start of the declaration of the specified element.
+      @return the line number (starting with one), or zero if the element was not declared in a source file.
+    */
+
+    public long getLineNumber(@NotNull Element e)
+    {
+        CompilationUnitPositions positions = getPositions(e);
+        if (positions == null) {
+            return 0;
+        }
+        if (positions.contains(e)) {
+            return positions.getLineNumber(e);
+        }
+
+        // The element is declared where the index does not look, such as in a method body
+        TreePath path = docTrees.getPath(e);
+        if (path == null) {
+            return 0;
+        }
+        CompilationUnitTree cu = path.getCompilationUnit();
+        long pos = docTrees.getSourcePositions().getStartPosition(cu, path.getLeaf());
+        return cu.getLineMap().getLineNumber(pos);
+    }
+
+    /**
+      Return the location of the declaration of the specified element.
+      @return the location, or null if the element was not declared in a source file.
+    */
+
+    public @Nullable SourceLocation getSourceLocation(@NotNull Element e)
+    {
+        CompilationUnitPositions positions = getPositions(e);
+        if (positions == null) {
+            return null;
+        }
+        Path file = positions.getSourcePath();
+        TypeElement top = getTopLevelType(e);
+        if (file == null || top == null) {
+            return null;
+        }
+        return new SourceLocation(file.toString(), top.getQualifiedName().toString(), (int) getLineNumber(e),
+          positions.getCharset());
+    }
+
+    public @NotNull CacheStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    private static @Nullable TypeElement getTopLevelType(@NotNull Element e)
+    {
+        TypeElement result = null;
+        for (Element current = e; current != null; current = current.getEnclosingElement()) {
+            if (current instanceof TypeElement te) {
+                result = te;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import com.sun.source.util.DocTreePath;
+import jdk.javadoc.doclet.Reporter;
+import org.jetbrains.annotations.NotNull;
+
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import java.io.PrintWriter;
+
+/**
+  A reporter whose diagnostics can be suppressed on the current thread. It is used when information is derived
+  again, so that diagnostics that have already been reported are not reported again.
+*/
+
+public class SuppressibleReporter
+  implements Reporter
+{
+    public static @NotNull SuppressibleReporter create(@NotNull Reporter reporter)
+    {
+        return new SuppressibleReporter(reporter);
+    }
+
+    private final @NotNull Reporter reporter;
+    private final @NotNull ThreadLocal<Boolean> isSuppressed = ThreadLocal.withInitial(() -> false);
+
+    private SuppressibleReporter(@NotNull Reporter reporter)
+    {
+        this.reporter = reporter;
+    }
+
+    /**
+      Suppress or enable diagnostics reported on the current thread.
+    */
+
+    public void setSuppressed(boolean b)
+    {
+        isSuppressed.set(b);
+    }
+
+    @Override
+    public void print(@NotNull Diagnostic.Kind kind, @NotNull String message)
+    {
+        if (!isSuppressed.get()) {
+            reporter.print(kind, message);
+        }
+    }
+
+    @Override
+    public void print(@NotNull Diagnostic.Kind kind, @NotNull DocTreePath path, @NotNull String message)
+    {
+        if (!isSuppressed.get()) {
+            reporter.print(kind, path, message);
+        }
+    }
+
+    @Override
+    public void print(@NotNull Diagnostic.Kind kind,
+                      @NotNull DocTreePath path,
+                      int start,
+                      int pos,
+                      int end,
+                      @NotNull String message)
+    {
+        if (!isSuppressed.get()) {
+            reporter.print(kind, path, start, pos, end, message);
+        }
+    }
+
+    @Override
+    public void print(@NotNull Diagnostic.Kind kind, @NotNull Element e, @NotNull String message)
+    {
+        if (!isSuppressed.get()) {
+            reporter.print(kind, e, message);
+        }
+    }
+
+    @Override
+    public void print(@NotNull Diagnostic.Kind kind,
+                      @NotNull FileObject file,
+                      int start,
+                      int pos,
+                      int end,
+                      @NotNull String message)
+    {
+        if (!isSuppressed.get()) {
+            reporter.print(kind, file, start, pos, end, message);
+        }
+    }
+
+    @Override
+    public @NotNull PrintWriter getStandardWriter()
+    {
+        return reporter.getStandardWriter();
+    }
+
+    @Override
+    public @NotNull PrintWriter getDiagnosticWriter()
+    {
+        return reporter.getDiagnosticWriter();
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+  Divide the lines of a snippet into tokens for syntax highlighting. The supported languages are XML (including Ant
+  build files), Java, and properties files.
+  <p>
+  A highlighter is a small state machine that is applied to successive lines. The state carries constructs that
+  span lines, such as comments. A highlighter is created for each snippet.
+  <p>
+  The tokens for a line are represented as an array of (start, end, kind) triples, in order. Characters not
+  covered by a token are not highlighted. Tokens produced for a snippet can be cached in a {@link SnippetTokenCache},
+  so that a snippet that appears in multiple places is tokenized once.
+*/
+
+public abstract class SyntaxHighlighter
+{
+    /**
+      Create a highlighter for a language.
+      @param lang The language, as specified by the {@code lang} attribute of a snippet.
+      @return the highlighter, or null if the language is not supported.
+    */
+
+    public static @Nullable SyntaxHighlighter create(@Nullable String lang)
+    {
+        if (lang == null) {
+            return null;
+        }
+        return switch (lang) {
+            case "xml", "ant", "html" -> new XmlHighlighter();
+            case "java" -> new JavaHighlighter();
+            case "properties" -> new PropertiesHighlighter();
+            default -> null;
+        };
+    }
+
+    public static final int KEYWORD = 0;
+    public static final int STRING = 1;
+    public static final int COMMENT = 2;
+    public static final int NUMBER = 3;
+    public static final int ANNOTATION = 4;
+    public static final int TAG = 5;
+    public static final int ATTRIBUTE = 6;
+    public static final int VALUE = 7;
+    public static final int ENTITY = 8;
+    public static final int KEY = 9;
+
+    private static final String[] CSS_CLASSES = {
+      "syntax-keyword", "syntax-string", "syntax-comment", "syntax-number", "syntax-annotation",
+      "syntax-tag", "syntax-attribute", "syntax-value", "syntax-entity", "syntax-key"
+    };
+
+    /**
+      Return the CSS class name for a token kind.
+    */
+
+    public static @NotNull String getCssClass(int kind)
+    {
+        return CSS_CLASSES[kind];
+    }
+
+    private int[] tokens = new int[24];
+    private int count;
+
+    /**
+      Tokenize the next line of the snippet.
+      @return the tokens as (start, end, kind) triples.
+    */
+
+    public @NotNull int[] tokenize(@NotNull String line)
+    {
+        count = 0;
+        scan(line);
+        return Arrays.copyOf(tokens, count);
+    }
+
+    protected abstract void scan(@NotNull String line);
+
+    protected void add(int start, int end, int kind)
+    {
+        if (end <= start) {
+            return;
+        }
+        if (count + 3 > tokens.length) {
+            tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        }
+        tokens[count++] = start;
+        tokens[count++] = end;
+        tokens[count++] = kind;
+    }
+
+    private static class XmlHighlighter
+      extends SyntaxHighlighter
+    {
+        private static final int TEXT = 0;
+        private static final int IN_COMMENT = 1;
+        private static final int IN_TAG = 2;
+        private static final int IN_CDATA = 3;
+        private static final int IN_DOUBLE_QUOTED = 4;
+        private static final int IN_SINGLE_QUOTED = 5;
+
+        private int state = TEXT;
+
+        @Override
+        protected void scan(@NotNull String line)
+        {
+            int len = line.length();
+            int i = 0;
+            while (i < len) {
+                switch (state) {
+                    case IN_COMMENT -> i = scanTo(line, i, "-->", COMMENT);
+                    case IN_CDATA -> i = scanTo(line, i, "]]>", STRING);
+                    case IN_DOUBLE_QUOTED -> i = scanValue(line, i, '"');
+                    case IN_SINGLE_QUOTED -> i = scanValue(line, i, '\'');
+                    case IN_TAG -> i = scanTag(line, i);
+                    default -> i = scanText(line, i);
+                }
+            }
+        }
+
+        private int scanText(@NotNull String line, int i)
+        {
+            int len = line.length();
+            while (i < len) {
+                char c = line.charAt(i);
+                if (c == '<') {
+                    if (line.startsWith("<!--", i)) {
+                        state = IN_COMMENT;
+                        return scanTo(line, i, "-->", COMMENT, 4);
+                    }
+                    if (line.startsWith("<![CDATA[", i)) {
+                        state = IN_CDATA;
+                        return scanTo(line, i, "]]>", STRING, 9);
+                    }
+                    int start = i++;
+                    if (i < len && (line.charAt(i) == '/' || line.charAt(i) == '?' || line.charAt(i) == '!')) {
+                        i++;
+                    }
+                    while (i < len && isNameChar(line.charAt(i))) {
+                        i++;
+                    }
+                    add(start, i, TAG);
+                    state = IN_TAG;
+                    return i;
+                }
+                if (c == '&') {
+                    int end = i + 1;
+                    while (end < len && (isNameChar(line.charAt(end)) || line.charAt(end) == '#')) {
+                        end++;
+                    }
+                    if (end < len && end > i + 1 && line.charAt(end) == ';') {
+                        add(i, end + 1, ENTITY);
+                        i = end + 1;
+                        continue;
+                    }
+                }
+                i++;
+            }
+            return i;
+        }
+
+        private int scanTag(@NotNull String line, int i)
+        {
+            int len = line.length();
+            while (i < len) {
+                char c = line.charAt(i);
+                if (c == '>') {
+                    add(i, i + 1, TAG);
+                    state = TEXT;
+                    return i + 1;
+                }
+                if ((c == '/' || c == '?') && i + 1 < len && line.charAt(i + 1) == '>') {
+                    add(i, i + 2, TAG);
+                    state = TEXT;
+                    return i + 2;
+                }
+                if (c == '"' || c == '\'') {
+                    state = c == '"' ? IN_DOUBLE_QUOTED : IN_SINGLE_QUOTED;
+                    return scanValue(line, i, c, 1);
+                }
+                if (isNameChar(c)) {
+                    int start = i;
+                    while (i < len && isNameChar(line.charAt(i))) {
+                        i++;
+                    }
+                    add(start, i, ATTRIBUTE);
+                    continue;
+                }
+                i++;
+            }
+            return i;
+        }
+
+        private int scanValue(@NotNull String line, int i, char quote)
+        {
+            return scanValue(line, i, quote, 0);
+        }
+
+        private int scanValue(@NotNull String line, int i, char quote, int skip)
+        {
+            int end = line.indexOf(quote, i + skip);
+            if (end < 0) {
+                add(i, line.length(), VALUE);
+                return line.length();
+            }
+            add(i, end + 1, VALUE);
+            state = IN_TAG;
+            return end + 1;
+        }
+
+        private int scanTo(@NotNull String line, int i, @NotNull String terminator, int kind)
+        {
+            return scanTo(line, i, terminator, kind, 0);
+        }
+
+        private int scanTo(@NotNull String line, int i, @NotNull String terminator, int kind, int skip)
+        {
+            int end = line.indexOf(terminator, i + skip);
+            if (end < 0) {
+                add(i, line.length(), kind);
+                return line.length();
+            }
+            end += terminator.length();
+            add(i, end, kind);
+            state = TEXT;
+            return end;
+        }
+
+        private static boolean isNameChar(char c)
+        {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':';
+        }
+    }
+
+    private static class JavaHighlighter
+      extends SyntaxHighlighter
+    {
+        private static final Set<String> KEYWORDS = Set.of(
+          "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+          "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "goto", "if",
+          "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+          "protected", "public", "record", "return", "short", "static", "strictfp", "super", "switch",
+          "synchronized", "this", "throw", "throws", "transient", "try", "var", "void", "volatile", "while",
+          "yield", "true", "false", "null");
+
+        private static final int CODE = 0;
+        private static final int IN_COMMENT = 1;
+        private static final int IN_TEXT_BLOCK = 2;
+
+        private int state = CODE;
+
+        @Override
+        protected void scan(@NotNull String line)
+        {
+            int len = line.length();
+            int i = 0;
+            if (state == IN_COMMENT) {
+                i = scanTo(line, 0, "*/", COMMENT);
+            } else if (state == IN_TEXT_BLOCK) {
+                i = scanTo(line, 0, "\"\"\"", STRING);
+            }
+            while (i < len) {
+                char c = line.charAt(i);
+                if (c == '/' && line.startsWith("//", i)) {
+                    add(i, len, COMMENT);
+                    return;
+                }
+                if (c == '/' && line.startsWith("/*", i)) {
+                    state = IN_COMMENT;
+                    i = scanTo(line, i, "*/", COMMENT, 2);
+                } else if (c == '"' && line.startsWith("\"\"\"", i)) {
+                    state = IN_TEXT_BLOCK;
+                    i = scanTo(line, i, "\"\"\"", STRING, 3);
+                } else if (c == '"' || c == '\'') {
+                    i = scanQuoted(line, i, c);
+                } else if (c == '@' && i + 1 < len && Character.isJavaIdentifierStart(line.charAt(i + 1))) {
+                    int start = i++;
+                    while (i < len && (Character.isJavaIdentifierPart(line.charAt(i)) || line.charAt(i) == '.')) {
+                        i++;
+                    }
+                    add(start, i, ANNOTATION);
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    int start = i;
+                    while (i < len && Character.isJavaIdentifierPart(line.charAt(i))) {
+                        i++;
+                    }
+                    if (KEYWORDS.contains(line.substring(start, i))) {
+                        add(start, i, KEYWORD);
+                    }
+                } else if (Character.isDigit(c)) {
+                    int start = i;
+                    while (i < len && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '_'
+                      || line.charAt(i) == '.')) {
+                        i++;
+                    }
+                    add(start, i, NUMBER);
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        private int scanQuoted(@NotNull String line, int i, char quote)
+        {
+            int len = line.length();
+            int start = i++;
+            while (i < len) {
+                char c = line.charAt(i++);
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    break;
+                }
+            }
+            i = Math.min(i, len);
+            add(start, i, STRING);
+            return i;
+        }
+
+        private int scanTo(@NotNull String line, int i, @NotNull String terminator, int kind)
+        {
+            return scanTo(line, i, terminator, kind, 0);
+        }
+
+        private int scanTo(@NotNull String line, int i, @NotNull String terminator, int kind, int skip)
+        {
+            int end = line.indexOf(terminator, i + skip);
+            if (end < 0) {
+                add(i, line.length(), kind);
+                return line.length();
+            }
+            end += terminator.length();
+            add(i, end, kind);
+            state = CODE;
+            return end;
+        }
+    }
+
+    private static class PropertiesHighlighter
+      extends SyntaxHighlighter
+    {
+        private boolean isContinuation;
+
+        @Override
+        protected void scan(@NotNull String line)
+        {
+            int len = line.length();
+            int i = 0;
+            while (i < len && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+
+            if (isContinuation) {
+                add(i, len, VALUE);
+                isContinuation = endsWithContinuation(line);
+                return;
+            }
+
+            if (i < len && (line.charAt(i) == '#' || line.charAt(i) == '!')) {
+                add(i, len, COMMENT);
+                return;
+            }
+
+            int keyStart = i;
+            while (i < len) {
+                char c = line.charAt(i);
+                if (c == '\\') {
+                    i += 2;
+                    continue;
+                }
+                if (c == '=' || c == ':' || Character.isWhitespace(c)) {
+                    break;
+                }
+                i++;
+            }
+            i = Math.min(i, len);
+            add(keyStart, i, KEY);
+
+            while (i < len && (Character.isWhitespace(line.charAt(i)))) {
+                i++;
+            }
+            if (i < len && (line.charAt(i) == '=' || line.charAt(i) == ':')) {
+                i++;
+            }
+            while (i < len && (Character.isWhitespace(line.charAt(i)))) {
+                i++;
+            }
+            add(i, len, VALUE);
+            isContinuation = endsWithContinuation(line);
+        }
+
+        private static boolean endsWithContinuation(@NotNull String line)
+        {
+            int count = 0;
+            for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+                count++;
+            }
+            return count % 2 == 1;
+        }
+    }
+}
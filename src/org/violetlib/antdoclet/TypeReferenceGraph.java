@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2024 Alan Snyder.
+ * All rights reserved.
+ *
+ * You may not use, copy or modify this file, except in compliance with the license agreement. For details see
+ * accompanying license terms.
+ */
+
+package org.violetlib.antdoclet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.lang.model.element.TypeElement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+  A graph of references between types. An edge from one type to another indicates that the documentation of the
+  first type mentions the second type, for example as the type of an attribute or a nested element.
+  <p>
+  Each type is assigned a dense integer node number when it is first added. Edges are stored in per-node adjacency
+  arrays, in both directions, so that the types that refer to a type can be found as cheaply as the types that it
+  refers to.
+*/
+
+public class TypeReferenceGraph
+{
+    private static final ReferenceKind[] KINDS = ReferenceKind.values();
+
+    public static @NotNull TypeReferenceGraph create()
+    {
+        return new TypeReferenceGraph();
+    }
+
+    private final @NotNull Map<TypeElement,Integer> nodes = new HashMap<>();
+    private final @NotNull List<TypeElement> types = new ArrayList<>();
+
+    // An edge is encoded as (target node << 2) | kind.
+    private int[][] outgoing = new int[16][];
+    private int[] outgoingCounts = new int[16];
+    private int[][] incoming = new int[16][];
+    private int[] incomingCounts = new int[16];
+
+    private TypeReferenceGraph()
+    {
+    }
+
+    /**
+      Return the number of nodes in the graph.
+    */
+
+    public int getNodeCount()
+    {
+        return types.size();
+    }
+
+    /**
+      Return the node number of the specified type.
+      @return the node number, or -1 if the type is not in the graph.
+    */
+
+    public int getNode(@NotNull TypeElement te)
+    {
+        Integer n = nodes.get(te);
+        return n != null ? n : -1;
+    }
+
+    /**
+      Return the type associated with the specified node number.
+    */
+
+    public @NotNull TypeElement getType(int node)
+    {
+        return types.get(node);
+    }
+
+    /**
+      Add a type to the graph, if not already present.
+      @return the node number of the type.
+    */
+
+    public int addNode(@NotNull TypeElement te)
+    {
+        Integer n = nodes.get(te);
+        if (n != null) {
+            return n;
+        }
+        int node = types.size();
+        types.add(te);
+        nodes.put(te, node);
+        if (node == outgoing.length) {
+            int capacity = node * 2;
+            outgoing = Arrays.copyOf(outgoing, capacity);
+            outgoingCounts = Arrays.copyOf(outgoingCounts, capacity);
+            incoming = Arrays.copyOf(incoming, capacity);
+            incomingCounts = Arrays.copyOf(incomingCounts, capacity);
+        }
+        return node;
+    }
+
+    /**
+      Record a reference from one type to another. Duplicate references are ignored.
+    */
+
+    public void addReference(@NotNull TypeElement from, @NotNull TypeElement to, @NotNull ReferenceKind kind)
+    {
+        int source = addNode(from);
+        int target = addNode(to);
+        int edge = (target << 2) | kind.ordinal();
+        if (contains(outgoing[source], outgoingCounts[source], edge)) {
+            return;
+        }
+        append(outgoing, outgoingCounts, source, edge);
+        append(incoming, incomingCounts, target, (source << 2) | kind.ordinal());
+    }
+
+    private static boolean contains(@Nullable int[] edges, int count, int edge)
+    {
+        for (int i = 0; i < count; i++) {
+            if (edges[i] == edge) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void append(@NotNull int[][] adjacency, @NotNull int[] counts, int node, int edge)
+    {
+        int[] edges = adjacency[node];
+        int count = counts[node];
+        if (edges == null) {
+            edges = new int[4];
+            adjacency[node] = edges;
+        } else if (count == edges.length) {
+            edges = Arrays.copyOf(edges, count * 2);
+            adjacency[node] = edges;
+        }
+        edges[count] = edge;
+        counts[node] = count + 1;
+    }
+
+    /**
+      Return the types referred to by the specified type, in the order in which the references were added. A type
+      that is referred to in more than one way is returned once.
+    */
+
+    public @NotNull List<TypeElement> getReferencedTypes(@NotNull TypeElement te)
+    {
+        return collect(outgoing, outgoingCounts, getNode(te), null);
+    }
+
+    /**
+      Return the types referred to by the specified type in the specified way.
+    */
+
+    public @NotNull List<TypeElement> getReferencedTypes(@NotNull TypeElement te, @NotNull ReferenceKind kind)
+    {
+        return collect(outgoing, outgoingCounts, getNode(te), kind);
+    }
+
+    /**
+      Return the types that refer to the specified type. If the documentation of a type changes, the documentation of
+      these types may also need to be updated.
+    */
+
+    public @NotNull List<TypeElement> getReferencingTypes(@NotNull TypeElement te)
+    {
+        return collect(incoming, incomingCounts, getNode(te), null);
+    }
+
+    /**
+      Return the kinds of references from one type to another.
+      @return the reference kinds, which is empty if the first type does not refer to the second type.
+    */
+
+    public @NotNull List<ReferenceKind> getReferenceKinds(@NotNull TypeElement from, @NotNull TypeElement to)
+    {
+        int source = getNode(from);
+        int target = getNode(to);
+        if (source < 0 || target < 0 || outgoing[source] == null) {
+            return List.of();
+        }
+        List<ReferenceKind> result = new ArrayList<>();
+        int[] edges = outgoing[source];
+        for (int i = 0; i < outgoingCounts[source]; i++) {
+            if (edges[i] >>> 2 == target) {
+                result.add(KINDS[edges[i] & 3]);
+            }
+        }
+        return result;
+    }
+
+    private @NotNull List<TypeElement> collect(@NotNull int[][] adjacency,
+                                               @NotNull int[] counts,
+                                               int node,
+                                               @Nullable ReferenceKind kind)
+    {
+        if (node < 0 || adjacency[node] == null) {
+            return Collections.emptyList();
+        }
+        int[] edges = adjacency[node];
+        int count = counts[node];
+        List<TypeElement> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int edge = edges[i];
+            int other = edge >>> 2;
+            if (kind != null) {
+                if ((edge & 3) == kind.ordinal()) {
+                    result.add(types.get(other));
+                }
+            } else if (!containsNode(edges, i, other)) {
+                // A type referred to in several ways is reported at its first reference
+                result.add(types.get(other));
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsNode(@NotNull int[] edges, int count, int node)
+    {
+        for (int i = 0; i < count; i++) {
+            if (edges[i] >>> 2 == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -39,7 +39,9 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
 
 /**
   A "facade" to the Velocity template engine
@@ -52,6 +54,8 @@ public class VelocityFacade
     private VelocityEngine velocity;
     private File outputDir;
     private final Context context;
+    private @Nullable OutputCompressor compressor;
+    private @Nullable OutputPostProcessor postProcessor;
 
     /**
       @param outputDir directory for output
@@ -60,7 +64,19 @@ public class VelocityFacade
     public VelocityFacade(@NotNull File outputDir, @NotNull String templatesDir)
       throws Exception
     {
-        initVelocityEngine(templatesDir);
+        this(outputDir, templatesDir, null);
+    }
+
+    /**
+      @param outputDir directory for output
+      @param templatesDir comma-separated list of directories from which templates are loaded
+      @param logFile the Velocity log file, or null to use the default log file
+    */
+
+    public VelocityFacade(@NotNull File outputDir, @NotNull String templatesDir, @Nullable File logFile)
+      throws Exception
+    {
+        initVelocityEngine(templatesDir, logFile);
         this.outputDir = outputDir;
         this.context = new VelocityContext();
     }
@@ -69,12 +85,15 @@ public class VelocityFacade
       Create and initialize a VelocityEngine
     */
 
-    private void initVelocityEngine(@NotNull String templatesDir)
+    private void initVelocityEngine(@NotNull String templatesDir, @Nullable File logFile)
       throws Exception
     {
         velocity = new VelocityEngine();
         velocity.setProperty("resource.loader", "file, class");
         velocity.setProperty("file.resource.loader.path", templatesDir); // default "file" loader
+        if (logFile != null) {
+            velocity.setProperty("runtime.log", logFile.getPath());
+        }
         velocity.init();
     }
 
@@ -88,6 +107,24 @@ public class VelocityFacade
         this.outputDir = outdir;
     }
 
+    /**
+      Specify an object that writes a compressed copy of each output file.
+    */
+
+    public void setCompressor(@Nullable OutputCompressor compressor)
+    {
+        this.compressor = compressor;
+    }
+
+    /**
+      Specify an object that post-processes each output file.
+    */
+
+    public void setPostProcessor(@Nullable OutputPostProcessor postProcessor)
+    {
+        this.postProcessor = postProcessor;
+    }
+
     /**
       Get a Writer to the specified file
     */
@@ -121,16 +158,34 @@ public class VelocityFacade
     /**
       Evaluate a template.
       @param templateName the name of the template
+      @param outputName the name of the output file, or null if not writing to a file
       @param writer output destination
       @param context merge context
     */
 
-    void merge(@NotNull String templateName, @NotNull Writer writer, @NotNull Context context)
+    void merge(@NotNull String templateName,
+               @Nullable String outputName,
+               @NotNull Writer writer,
+               @NotNull Context context)
     {
+        DocletEvents.TemplateMergeEvent event = new DocletEvents.TemplateMergeEvent();
+        CountingWriter counter = null;
+        if (event.isEnabled()) {
+            counter = new CountingWriter(writer);
+            writer = counter;
+        }
+        event.begin();
         try {
             Template template = this.velocity.getTemplate(templateName);
             template.merge(context, writer);
             writer.flush();
+            event.end();
+            if (event.shouldCommit()) {
+                event.template = templateName;
+                event.output = outputName;
+                event.outputLength = counter != null ? counter.count : 0;
+                event.commit();
+            }
 
         } catch (MethodInvocationException e) {
             Throwable cause = e.getWrappedThrowable();
@@ -156,7 +211,7 @@ public class VelocityFacade
     public void eval(@NotNull String templateName, @NotNull Writer writer)
       throws IOException
     {
-        merge(templateName, writer, getContext());
+        merge(templateName, null, writer, getContext());
     }
 
     /**
@@ -168,11 +223,134 @@ public class VelocityFacade
     public void eval(@NotNull String templateName, @NotNull String fileName)
       throws IOException
     {
+        write(fileName, w -> merge(templateName, fileName, w, getContext()));
+    }
+
+    /**
+      Writes the content of an output file.
+    */
+
+    public interface ContentWriter
+    {
+        void write(@NotNull Writer w)
+          throws IOException;
+    }
+
+    /**
+      Write an output file that is not produced by a template. The file is post-processed and compressed in the same
+      way as the output of a template, and uses the same character encoding.
+      @param fileName name of output file, relative to the output directory
+      @param content writes the content of the file
+    */
+
+    public void write(@NotNull String fileName, @NotNull ContentWriter content)
+      throws IOException
+    {
+        if (compressor != null) {
+            // The page is rendered in memory so that an unchanged page need not be written or compressed again
+            StringWriter writer = new StringWriter();
+            writePostProcessed(fileName, content, writer);
+            File file = new File(getOutputDir(), fileName);
+            compressor.write(file.toPath(), writer.toString().getBytes(Charset.defaultCharset()));
+            return;
+        }
+
         FileWriter writer = getFileWriter(fileName);
-        eval(templateName, writer);
+        writePostProcessed(fileName, content, writer);
         writer.close();
     }
 
+    private void writePostProcessed(@NotNull String fileName, @NotNull ContentWriter content, @NotNull Writer writer)
+      throws IOException
+    {
+        if (postProcessor != null) {
+            Writer w = postProcessor.wrap(writer, fileName);
+            content.write(w);
+            w.close();
+        } else {
+            content.write(writer);
+        }
+    }
+
+    /**
+      Evaluate a Velocity template.
+      @param templateName name of the template
+      @return the output of the template
+    */
+
+    public @NotNull String evalToString(@NotNull String templateName)
+    {
+        StringWriter writer = new StringWriter();
+        merge(templateName, null, writer, getContext());
+        return writer.toString();
+    }
+
+    /**
+      Return a JavaScript string literal whose value is the specified string.
+    */
+
+    public @NotNull String toJavaScriptString(@NotNull String s)
+      throws IOException
+    {
+        StringWriter writer = new StringWriter(s.length() + 16);
+        JsonWriter.create(writer).value(s);
+        return writer.toString();
+    }
+
+    /**
+      A writer that counts the characters written to it.
+    */
+
+    private static class CountingWriter
+      extends Writer
+    {
+        private final @NotNull Writer out;
+        private long count;
+
+        public CountingWriter(@NotNull Writer out)
+        {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c)
+          throws IOException
+        {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len)
+          throws IOException
+        {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(@NotNull String s, int off, int len)
+          throws IOException
+        {
+            out.write(s, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush()
+          throws IOException
+        {
+            out.flush();
+        }
+
+        @Override
+        public void close()
+          throws IOException
+        {
+            out.close();
+        }
+    }
+
     public @NotNull Object create(@NotNull String className)
       throws Exception
     {